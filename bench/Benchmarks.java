@@ -0,0 +1,178 @@
+package bench;
+
+import static misc.Constants.DB;
+import static misc.Constants.SEARCH_RESULTS;
+import models.*;
+import repository.GameMasterRepository;
+import services.HelperService;
+import storage.EntityStore;
+import storage.FileEngine;
+import storage.MySQLEngine;
+import storage.StorageEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/*
+    Usage: java -cp bin;lib/* bench.Benchmarks [options]
+        --sizes 1000,10000,100000     catalog sizes (games and clients); up to 1000000 with a large heap
+        --only filter                 run only the benchmarks whose name contains the text
+        --engines file,mysql          storage engines to compare (mysql reads the configured database)
+        --warmup 3 --iterations 5 --time 1000
+*/
+public final class Benchmarks {
+    // Options
+    private static List<Integer> sizes = List.of(1_000, 10_000, 100_000);
+    private static List<String> engines = List.of("file");
+    private static String only = "";
+    private static int warmup = 3;
+    private static int iterations = 5;
+    private static long time = 1000;
+
+
+    // Entry point
+    public static void main(String[] args) throws Exception {
+        parse(args);
+
+        Harness harness = new Harness(warmup, iterations, time);
+        System.out.println(Harness.header());
+        for (int size : sizes) {
+            Catalog catalog = new Catalog(size);
+            GameMasterRepository.seed(catalog.getEntities());
+
+            hotPaths(harness, catalog);
+            for (String engine : engines) {
+                storage(harness, catalog, engine);
+            }
+        }
+    }
+
+
+    // Hot paths of the menus (filtering, sorting and rendering the in-memory catalog)
+    private static void hotPaths(Harness harness, Catalog catalog) throws Exception {
+        String size = String.valueOf(catalog.getSize());
+        Random random = new Random(7);
+        List<Client> clients = catalog.getClients();
+        List<Game> games = new ArrayList<>(DB.getGames().values());
+        List<Purchase> purchases = new ArrayList<>(DB.getPurchases().values());
+        List<Wishlist> wishlists = new ArrayList<>(DB.getWishlists().values());
+
+        run(harness, "Game.filterDisowned", size,
+            () -> Game.filterDisowned(clients.get(random.nextInt(clients.size())).getID()));
+        run(harness, "Game.filterNotInWishlist", size,
+            () -> Game.filterNotInWishlist(clients.get(random.nextInt(clients.size())).getID()));
+        run(harness, "DLC.filterDisowned", size,
+            () -> DLC.filterDisowned(clients.get(random.nextInt(clients.size())).getID()));
+        run(harness, "Wishlist.filterByType", size,
+            () -> Wishlist.filterByType(wishlists, "dlc"));
+        for (String criteria : List.of("Name", "Price", "Release date")) {
+            run(harness, "Purchase.sortByCriteria(" + criteria + ")", size,
+                () -> Purchase.sortByCriteria(purchases, criteria));
+        }
+        List<String> queries = List.of("legend", "dark q", "shadw realm", "st", games.get(games.size() / 2).getRawName());
+        run(harness, "DB.searchGames", size,
+            () -> DB.searchGames(queries.get(random.nextInt(queries.size())), SEARCH_RESULTS, game -> true));
+        run(harness, "HelperService.filterByCondition", size,
+            () -> HelperService.filterByCondition(games, Game::getIsVisible));
+        run(harness, "HelperService.sortByCriteria", size,
+            () -> HelperService.sortByCriteria(games, Comparator.comparing(Game::getPrice)));
+        run(harness, "Game.toString", size,
+            () -> games.get(random.nextInt(games.size())).toString());
+    }
+
+
+    // Storage engines (bulk insert, point lookups and full loads)
+    private static void storage(Harness harness, Catalog catalog, String engine) throws Exception {
+        String size = catalog.getSize() + "/" + engine;
+        Random random = new Random(7);
+        List<Game> games = catalog.getGames();
+
+        Path folder = null;
+        StorageEngine storage;
+        if (engine.equals("file")) {
+            folder = Files.createTempDirectory("gamemaster-bench");
+            storage = new FileEngine(folder.toString());
+        }
+        else {
+            storage = new MySQLEngine();
+        }
+
+        try {
+            EntityStore<Integer, Game> store = storage.getGames();
+            if (folder != null) {
+                run(harness, "EntityStore.insertAll", size, () -> {
+                    store.deleteAll(games);
+                    return store.insertAll(games);
+                });
+            }
+
+            List<Integer> IDs = new ArrayList<>(store.loadAll().keySet());
+            if (IDs.isEmpty()) {
+                System.out.println("Skipping " + engine + " reads: the game table is empty");
+                return;
+            }
+
+            run(harness, "EntityStore.find", size,
+                () -> store.find(IDs.get(random.nextInt(IDs.size()))));
+            run(harness, "EntityStore.loadAll", size, store::loadAll);
+            run(harness, "StorageEngine.getRowCounts", size, storage::getRowCounts);
+        }
+        finally {
+            if (folder != null) {
+                storage.close();
+                delete(folder);
+            }
+        }
+    }
+
+
+    // Helpers
+    private static void run(Harness harness, String name, String parameter, Harness.Operation operation) throws Exception {
+        if (name.contains(only)) {
+            harness.run(name, parameter, operation);
+        }
+    }
+
+    private static void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = Arrays.stream(value.split(",")).map(Integer::parseInt).toList();
+                    break;
+                case "--engines":
+                    engines = List.of(value.split(","));
+                    break;
+                case "--only":
+                    only = value;
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--time":
+                    time = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+
+    private static void delete(Path folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
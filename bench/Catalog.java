@@ -0,0 +1,228 @@
+package bench;
+
+import models.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/*
+    Synthetic, referentially valid catalog of `size` games (one in ten is a DLC of an earlier
+    base game) and `size` clients, with a provider for every hundred games and an admin for
+    every ten thousand clients. Game popularity follows a Zipf distribution over a shuffled
+    ranking: purchases average three per client, wishlists have a long (Pareto) tail. Every
+    published (developer, publisher) pair has a contract. Everything comes from a fixed seed,
+    so runs are comparable.
+*/
+public final class Catalog {
+    // Shape
+    public static final double DEFAULT_SKEW = 1.0;
+    private static final int GAMES_PER_PROVIDER = 100;
+    private static final int CLIENTS_PER_ADMIN = 10_000;
+    private static final double PURCHASES_PER_CLIENT = 3;
+    private static final double WISHLIST_TAIL = 1.2;
+    private static final int MAX_WISHLIST = 200;
+    private static final long SEED = 42;
+
+
+    // Entities
+    private final int size;
+    private final List<Client> clients = new ArrayList<>();
+    private final List<Provider> providers = new ArrayList<>();
+    private final List<Admin> admins = new ArrayList<>();
+    private final List<Contract> contracts = new ArrayList<>();
+    private final List<Game> games = new ArrayList<>();
+    private final List<DLC> DLCs = new ArrayList<>();
+    private final List<Purchase> purchases = new ArrayList<>();
+    private final List<Wishlist> wishlists = new ArrayList<>();
+    private final List<Game> published = new ArrayList<>();
+
+
+    // Constructors
+    public Catalog(int size) {
+        this(size, DEFAULT_SKEW);
+    }
+
+    public Catalog(int size, double skew) {
+        this.size = size;
+        Random random = new Random(SEED);
+
+        int nextID = 1;
+        int adminCount = Math.max(1, size / CLIENTS_PER_ADMIN);
+        for (int i = 0; i < adminCount; ++i) {
+            admins.add(new Admin(
+                nextID++,
+                "admin" + i,
+                "password" + i,
+                "admin" + i + "@gamemaster.ro",
+                false,
+                "admin",
+                random.nextInt(3000) / 100.0
+            ));
+        }
+
+        int providerCount = Math.max(2, size / GAMES_PER_PROVIDER);
+        for (int i = 0; i < providerCount; ++i) {
+            providers.add(new Provider(
+                nextID++,
+                "provider" + i,
+                "password" + i,
+                "provider" + i + "@gamemaster.ro",
+                false,
+                "provider",
+                "www.provider" + i + ".ro",
+                i % 2 == 0 ? "developer" : "publisher"
+            ));
+        }
+
+        for (int i = 0; i < size; ++i) {
+            clients.add(new Client(
+                nextID++,
+                "client" + i,
+                "password" + i,
+                "client" + i + "@gamemaster.ro",
+                random.nextInt(500) == 0,
+                "client",
+                "First" + i,
+                "Last" + i,
+                String.format("07%08d", i)
+            ));
+        }
+
+        List<Game> baseGames = new ArrayList<>();
+        Set<String> signed = new HashSet<>();
+        for (int i = 0; i < size; ++i) {
+            int gameID = nextID++;
+            Provider developer = providers.get(random.nextInt(providerCount / 2) * 2);
+            boolean isPublished = random.nextInt(10) != 0;
+            Integer publisherID = isPublished ? providers.get(random.nextInt(providerCount / 2) * 2 + 1).getID() : 0;
+            boolean isDLC = !baseGames.isEmpty() && i % 10 == 0;
+
+            Game game = new Game(
+                gameID,
+                developer.getID(),
+                publisherID,
+                randomName(random, i),
+                isPublished ? random.nextInt(30000) / 100.0 : 0.0,
+                isPublished ? randomDate(random) : null,
+                random.nextInt(20) != 0,
+                isDLC ? "dlc" : "game"
+            );
+            games.add(game);
+
+            if (isDLC) {
+                DLCs.add(new DLC(gameID, baseGames.get(random.nextInt(baseGames.size())).getID()));
+            }
+            else {
+                baseGames.add(game);
+            }
+            if (isPublished) {
+                published.add(game);
+                if (signed.add(developer.getID() + "/" + publisherID)) {
+                    LocalDate start = randomDate(random);
+                    contracts.add(new Contract(
+                        developer.getID(),
+                        publisherID,
+                        "accepted",
+                        start,
+                        start.plusYears(1 + random.nextInt(3))
+                    ));
+                }
+            }
+        }
+
+        // Popularity ranks are shuffled so the best sellers are spread over the catalog
+        List<Game> ranking = new ArrayList<>(published);
+        Collections.shuffle(ranking, random);
+        Zipf popularity = new Zipf(ranking.size(), skew);
+
+        for (Client client : clients) {
+            Set<Integer> owned = new HashSet<>();
+            int purchaseCount = (int)Math.round(-PURCHASES_PER_CLIENT * Math.log(1 - random.nextDouble()));
+            for (int i = 0; i < purchaseCount; ++i) {
+                Game game = ranking.get(popularity.next(random));
+                if (owned.add(game.getID())) {
+                    purchases.add(new Purchase(game.getID(), client.getID(), randomDate(random), game.getPrice()));
+                }
+            }
+
+            int wishlistCount = Math.min(MAX_WISHLIST, (int)(1 / Math.pow(1 - random.nextDouble(), 1 / WISHLIST_TAIL)) - 1);
+            for (int i = 0; i < wishlistCount; ++i) {
+                Game game = ranking.get(popularity.next(random));
+                if (owned.add(game.getID())) {
+                    wishlists.add(new Wishlist(game.getID(), client.getID(), randomDate(random)));
+                }
+            }
+        }
+    }
+
+
+    // Getters
+    public int getSize() {
+        return size;
+    }
+
+    public List<Client> getClients() {
+        return clients;
+    }
+
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    public List<Admin> getAdmins() {
+        return admins;
+    }
+
+    public List<Contract> getContracts() {
+        return contracts;
+    }
+
+    public List<Game> getGames() {
+        return games;
+    }
+
+    public List<DLC> getDLCs() {
+        return DLCs;
+    }
+
+    public List<Purchase> getPurchases() {
+        return purchases;
+    }
+
+    public List<Wishlist> getWishlists() {
+        return wishlists;
+    }
+
+    public List<Object> getEntities() {
+        List<Object> entities = new ArrayList<>();
+        entities.addAll(clients);
+        entities.addAll(providers);
+        entities.addAll(admins);
+        entities.addAll(contracts);
+        entities.addAll(games);
+        entities.addAll(DLCs);
+        entities.addAll(purchases);
+        entities.addAll(wishlists);
+        return entities;
+    }
+
+
+    // Helpers
+    private static final String[] WORDS = {
+        "Dark", "Legend", "Quest", "Star", "Night", "Empire", "Racing", "Tactics",
+        "Shadow", "Realm", "Souls", "Craft", "Galaxy", "Dungeon", "Hero", "Storm"
+    };
+
+    private static String randomName(Random random, int index) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + index;
+    }
+
+    private static LocalDate randomDate(Random random) {
+        return LocalDate.of(2000 + random.nextInt(25), 1 + random.nextInt(12), 1 + random.nextInt(28));
+    }
+}
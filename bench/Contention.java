@@ -0,0 +1,215 @@
+package bench;
+
+import static misc.Constants.DB;
+import static misc.Constants.SEARCH_RESULTS;
+import models.*;
+import repository.GameMasterRepository;
+import repository.LibraryStats;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Usage: java -cp bin;lib/* bench.Contention [options]
+        --size 100000         catalog size (games and clients)
+        --threads 1,2,4,8     concurrent sessions to simulate
+        --writes 20           percentage of operations that change the repository
+        --time 2000           measured milliseconds per thread count, after a warmup as long
+
+    Every thread plays a session against the seeded repository: storefront reads (a library, the
+    games a client can still buy, a search) mixed with wishlist and purchase changes of random
+    clients and client profile updates. Reports the total throughput and its scaling over one
+    thread, then checks that the indexes still agree with the tables, which a lost update under
+    contention would break.
+*/
+public final class Contention {
+    // Options
+    private static int size = 100_000;
+    private static List<Integer> threadCounts = List.of(1, 2, 4, 8);
+    private static int writes = 20;
+    private static long time = 2000;
+
+
+    // Workload
+    private static final List<String> QUERIES = List.of("legend", "dark q", "shadw realm", "st");
+    private static volatile Object sink;
+
+
+    // Entry point
+    public static void main(String[] args) throws Exception {
+        parse(args);
+
+        Catalog catalog = new Catalog(size);
+        GameMasterRepository.seed(catalog.getEntities());
+        List<Client> clients = catalog.getClients();
+        List<Game> games = catalog.getGames();
+
+        System.out.println(String.format("%-40s %10s %16s %14s", "Benchmark", "(threads)", "ops/s", "scaling"));
+        double single = 0;
+        for (int threads : threadCounts) {
+            measure(threads, clients, games, time);
+            double throughput = measure(threads, clients, games, time);
+            if (single == 0) {
+                single = throughput / threads;
+            }
+            System.out.println(String.format(
+                "%-40s %10d %16.3f %14s",
+                "Repository mix (" + writes + "% writes)",
+                threads,
+                throughput,
+                String.format("x%.2f", throughput / single)
+            ));
+        }
+
+        check(clients);
+    }
+
+
+    // Measurement
+    // Total operations per second of the given number of threads running the workload together
+    private static double measure(int threads, List<Client> clients, List<Game> games, long millis) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong operations = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; ++i) {
+            SplittableRandom random = new SplittableRandom(7 + i);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+
+                long deadline = System.nanoTime() + millis * 1_000_000;
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    sink = operation(random, clients, games);
+                    ++done;
+                }
+                operations.addAndGet(done);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.get() / ((System.nanoTime() - begin) / 1_000_000_000.0);
+    }
+
+    private static Object operation(SplittableRandom random, List<Client> clients, List<Game> games) {
+        Client client = clients.get(random.nextInt(clients.size()));
+        int roll = random.nextInt(100);
+
+        if (roll < writes) {
+            Game game = games.get(random.nextInt(games.size()));
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                Wishlist wishlist = new Wishlist(game.getID(), client.getID(), LocalDate.now());
+                DB.modifyWishlists(wishlist, DB.getWishlists().containsKey(wishlist.getID()) ? "delete" : "create");
+                return wishlist;
+            }
+            if (kind < 9) {
+                Purchase purchase = new Purchase(game.getID(), client.getID(), LocalDate.now(), 9.99);
+                DB.modifyPurchases(purchase, DB.getPurchases().containsKey(purchase.getID()) ? "delete" : "create");
+                return purchase;
+            }
+            DB.modifyClients(client, "update");
+            return client;
+        }
+
+        int read = roll % 3;
+        if (read == 0) {
+            return DB.getPurchasesOfUser(client.getID());
+        }
+        if (read == 1) {
+            return DB.getDisowned(client.getID(), "game");
+        }
+        return DB.searchGames(QUERIES.get(random.nextInt(QUERIES.size())), SEARCH_RESULTS, game -> true);
+    }
+
+
+    // Consistency
+    private static void check(List<Client> clients) {
+        int purchasesByUser = 0;
+        int wishlistsByUser = 0;
+        int mismatchedStats = 0;
+        int ownedOnSale = 0;
+        for (Client client : clients) {
+            List<Purchase> library = DB.getPurchasesOfUser(client.getID());
+            purchasesByUser += library.size();
+            wishlistsByUser += DB.getWishlistsOfUser(client.getID()).size();
+
+            LibraryStats stats = DB.getLibraryStats(client.getID());
+            if (stats.getGames() + stats.getDLCs() != library.size()) {
+                ++mismatchedStats;
+            }
+            if (client.getID() % 100 == 0) {
+                Set<Integer> owned = new HashSet<>();
+                library.forEach(purchase -> owned.add(purchase.getGameID()));
+                for (Game game : DB.getDisowned(client.getID(), "game")) {
+                    if (owned.contains(game.getID())) {
+                        ++ownedOnSale;
+                    }
+                }
+            }
+        }
+
+        int purchasesByGame = 0;
+        int wishlistsByGame = 0;
+        for (Game game : DB.getGames().values()) {
+            purchasesByGame += DB.getPurchasesOfGame(game.getID()).size();
+            wishlistsByGame += DB.getWishlistsOfGame(game.getID()).size();
+        }
+
+        boolean consistent = purchasesByUser == DB.getPurchases().size() &&
+                             purchasesByGame == DB.getPurchases().size() &&
+                             wishlistsByUser == DB.getWishlists().size() &&
+                             wishlistsByGame == DB.getWishlists().size() &&
+                             mismatchedStats == 0 &&
+                             ownedOnSale == 0;
+        System.out.println(String.format(
+            "Consistency: %s (purchases %d, by user %d, by game %d; wishlists %d, by user %d, by game %d; " +
+            "library stats off for %d clients, %d owned games on sale)",
+            consistent ? "ok" : "BROKEN",
+            DB.getPurchases().size(), purchasesByUser, purchasesByGame,
+            DB.getWishlists().size(), wishlistsByUser, wishlistsByGame,
+            mismatchedStats, ownedOnSale
+        ));
+    }
+
+
+    // Helpers
+    private static void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--size":
+                    size = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threadCounts = Arrays.stream(value.split(",")).map(Integer::parseInt).toList();
+                    break;
+                case "--writes":
+                    writes = Integer.parseInt(value);
+                    break;
+                case "--time":
+                    time = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package bench;
+
+import static misc.Constants.STORAGE;
+import models.*;
+import repository.UnitOfWork;
+import storage.EntityStore;
+import storage.Schema;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+
+/*
+    Usage: java -cp bin;lib/* bench.Generator [options]
+        --size 100000        games and clients to generate (see Catalog for the other counts)
+        --skew 1.0           Zipf exponent of game popularity (0 is uniform)
+        --target storage     stream the rows into the configured storage engine with batched inserts
+        --target files       write tab separated files per table to --out, plus a load.sql
+                             script that bulk-loads them with LOAD DATA LOCAL INFILE
+        --out generated
+
+    Rows are written in foreign key order. Loading into storage expects empty tables
+    (mysql/rows/delete.sql); the local snapshot notices the new row counts and reloads.
+*/
+public final class Generator {
+    // Options
+    private static int size = 100_000;
+    private static double skew = Catalog.DEFAULT_SKEW;
+    private static String target = "storage";
+    private static Path out = Paths.get("generated");
+
+
+    // Entry point
+    public static void main(String[] args) throws Exception {
+        parse(args);
+
+        long start = System.nanoTime();
+        Catalog catalog = new Catalog(size, skew);
+        System.out.println(String.format(
+            "Generated %d clients, %d providers, %d admins, %d contracts, %d games, %d DLCs, %d purchases, %d wishlist entries in %d ms",
+            catalog.getClients().size(),
+            catalog.getProviders().size(),
+            catalog.getAdmins().size(),
+            catalog.getContracts().size(),
+            catalog.getGames().size(),
+            catalog.getDLCs().size(),
+            catalog.getPurchases().size(),
+            catalog.getWishlists().size(),
+            (System.nanoTime() - start) / 1_000_000
+        ));
+
+        start = System.nanoTime();
+        if (target.equals("files")) {
+            Files.createDirectories(out);
+            try (BufferedWriter script = Files.newBufferedWriter(out.resolve("load.sql"), StandardCharsets.UTF_8)) {
+                script.write("SET FOREIGN_KEY_CHECKS = 0;\n\n");
+                write(script, Client.SCHEMA, catalog.getClients());
+                write(script, Provider.SCHEMA, catalog.getProviders());
+                write(script, Admin.SCHEMA, catalog.getAdmins());
+                write(script, Game.SCHEMA, catalog.getGames());
+                write(script, DLC.SCHEMA, catalog.getDLCs());
+                write(script, Contract.SCHEMA, catalog.getContracts());
+                write(script, Purchase.SCHEMA, catalog.getPurchases());
+                write(script, Wishlist.SCHEMA, catalog.getWishlists());
+                script.write("SET FOREIGN_KEY_CHECKS = 1;\n");
+            }
+        }
+        else {
+            insert(STORAGE.getClients(), catalog.getClients());
+            insert(STORAGE.getProviders(), catalog.getProviders());
+            insert(STORAGE.getAdmins(), catalog.getAdmins());
+            insert(STORAGE.getGames(), catalog.getGames());
+            insert(STORAGE.getDLCs(), catalog.getDLCs());
+            insert(STORAGE.getContracts(), catalog.getContracts());
+            insert(STORAGE.getPurchases(), catalog.getPurchases());
+            insert(STORAGE.getWishlists(), catalog.getWishlists());
+            STORAGE.close();
+        }
+
+        System.out.println("Wrote the dataset to " + (target.equals("files") ? out.toAbsolutePath() : STORAGE.getName()) +
+                           " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+
+    // Targets
+    private static <K, T> void insert(EntityStore<K, T> store, Collection<T> entities) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            store.insertAll(entities);
+            work.commit();
+        }
+    }
+
+    // Files use MySQL's default LOAD DATA format (tab separated, \N for NULL)
+    private static <K, T> void write(BufferedWriter script, Schema<K, T> schema, Collection<T> entities) throws IOException {
+        for (Map.Entry<String, String[]> table : schema.getTables().entrySet()) {
+            int[] indexes = new int[table.getValue().length];
+            for (int i = 0; i < indexes.length; ++i) {
+                indexes[i] = schema.indexOf(table.getValue()[i]);
+            }
+
+            // Clients, providers and admins all have user rows, so files are named per schema and table
+            Path file = out.resolve(schema.getName() + "_" + table.getKey() + ".tsv");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                StringBuilder line = new StringBuilder();
+                for (T entity : entities) {
+                    Object[] row = schema.toRow(entity);
+                    line.setLength(0);
+                    for (int i = 0; i < indexes.length; ++i) {
+                        if (i > 0) {
+                            line.append('\t');
+                        }
+                        line.append(value(row[indexes[i]]));
+                    }
+                    writer.write(line.append('\n').toString());
+                }
+            }
+
+            script.write("LOAD DATA LOCAL INFILE '" + file.toAbsolutePath().toString().replace('\\', '/') + "'" +
+                         "\nINTO TABLE " + table.getKey().toUpperCase() +
+                         "\n(" + String.join(", ", table.getValue()) + ");\n\n");
+        }
+    }
+
+    private static String value(Object value) {
+        if (value == null) {
+            return "\\N";
+        }
+        else if (value instanceof Boolean) {
+            return (Boolean)value ? "1" : "0";
+        }
+        return value.toString()
+                    .replace("\\", "\\\\")
+                    .replace("\t", "\\t")
+                    .replace("\n", "\\n");
+    }
+
+
+    // Helpers
+    private static void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--size":
+                    size = Integer.parseInt(value);
+                    break;
+                case "--skew":
+                    skew = Double.parseDouble(value);
+                    break;
+                case "--target":
+                    target = value;
+                    break;
+                case "--out":
+                    out = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Minimal JMH-style runner: every benchmark gets a number of warmup iterations, then measured
+    iterations of a fixed duration. Each iteration reports the throughput (ops/s) and the bytes
+    allocated per operation by the benchmark thread. Results are consumed into a volatile sink
+    so the JIT cannot drop the measured work.
+*/
+public final class Harness {
+    // Configuration
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMillis;
+
+
+    // Results
+    private final List<Result> results = new ArrayList<>();
+    private static volatile Object sink;
+
+
+    // Allocation counter of the current thread
+    private static final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+
+    // Constructors
+    public Harness(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+
+    // Getters
+    public List<Result> getResults() {
+        return results;
+    }
+
+
+    // Running
+    public Result run(String name, String parameter, Operation operation) throws Exception {
+        for (int i = 0; i < warmupIterations; ++i) {
+            iteration(operation);
+        }
+
+        double[] throughputs = new double[measurementIterations];
+        double[] allocations = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; ++i) {
+            double[] measured = iteration(operation);
+            throughputs[i] = measured[0];
+            allocations[i] = measured[1];
+        }
+
+        Result result = new Result(name, parameter, mean(throughputs), deviation(throughputs), mean(allocations));
+        results.add(result);
+        System.out.println(result);
+        return result;
+    }
+
+    private double[] iteration(Operation operation) throws Exception {
+        long thread = Thread.currentThread().getId();
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000;
+        long operations = 0;
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long now;
+        do {
+            sink = operation.run();
+            ++operations;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        return new double[] {
+            operations / ((now - start) / 1_000_000_000.0),
+            (double)allocated / operations
+        };
+    }
+
+    public static String header() {
+        return String.format("%-40s %10s %16s %14s %14s", "Benchmark", "(param)", "ops/s", "error", "B/op");
+    }
+
+
+    // Helpers
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static double deviation(double[] values) {
+        if (values.length < 2) {
+            return 0;
+        }
+
+        double mean = mean(values);
+        double sum = 0;
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(sum / (values.length - 1));
+    }
+
+    @FunctionalInterface
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    public static final class Result {
+        private final String name;
+        private final String parameter;
+        private final double throughput;
+        private final double error;
+        private final double bytesPerOperation;
+
+        private Result(String name, String parameter, double throughput, double error, double bytesPerOperation) {
+            this.name = name;
+            this.parameter = parameter;
+            this.throughput = throughput;
+            this.error = error;
+            this.bytesPerOperation = bytesPerOperation;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getParameter() {
+            return parameter;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public double getBytesPerOperation() {
+            return bytesPerOperation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "%-40s %10s %16.3f %14s %14.1f",
+                name,
+                parameter,
+                throughput,
+                String.format("+- %.3f", error),
+                bytesPerOperation
+            );
+        }
+    }
+}
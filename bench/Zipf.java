@@ -0,0 +1,35 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+    Samples ranks 0..n-1 with P(rank k) proportional to 1 / (k + 1)^skew, by binary search over
+    the precomputed cumulative distribution. A skew of 0 is uniform; around 1 a few hundred
+    titles take most of the purchases, like a real storefront.
+*/
+public final class Zipf {
+    // Cumulative distribution
+    private final double[] cumulative;
+
+
+    // Constructors
+    public Zipf(int n, double skew) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; ++k) {
+            sum += 1 / Math.pow(k + 1, skew);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; ++k) {
+            cumulative[k] /= sum;
+        }
+    }
+
+
+    // Sampling
+    public int next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
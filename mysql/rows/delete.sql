@@ -1,3 +1,4 @@
+DELETE FROM ID_SEQUENCE;
 DELETE FROM CONTRACT;
 DELETE FROM WISHLIST;
 DELETE FROM PURCHASE;
@@ -108,4 +108,12 @@ CREATE TABLE CONTRACT
     FOREIGN KEY (publisher_id) REFERENCES PROVIDER(user_id),
     CHECK (status IN ('accepted', 'pending')),
     CHECK (start_date <= end_date)
-);
\ No newline at end of file
+);
+
+CREATE TABLE ID_SEQUENCE
+(
+    name VARCHAR(32),
+    next_id INT NOT NULL,
+
+    PRIMARY KEY (name)
+);
@@ -1,3 +1,4 @@
+DROP TABLE ID_SEQUENCE;
 DROP TABLE CONTRACT;
 DROP TABLE WISHLIST;
 DROP TABLE PURCHASE;
@@ -0,0 +1,16 @@
+@echo off
+cls
+cd ..
+echo Building the benchmarks...
+if not exist bin (
+    mkdir bin
+)
+javac -Xlint:deprecation -Xlint:unchecked -d bin -cp .;lib/* src\*.java src\exceptions\*.java src\interfaces\*.java src\misc\*.java src\models\*.java src\repository\*.java src\services\*.java src\storage\*.java bench\*.java
+if %errorlevel% neq 0 (
+    echo Build failed. Check the error messages above.
+    cd scripts
+    exit /b 1
+) 
+echo Running the benchmarks...
+java -Xmx4g -cp bin;lib/* bench.Benchmarks %*
+cd scripts
@@ -1,9 +1,14 @@
 package src;
 
+import static misc.Constants.SERVER_PORT;
 import services.AppService;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            AppService.getInstance().serve(args.length > 1 ? Integer.parseInt(args[1]) : SERVER_PORT);
+            return;
+        }
         AppService.getInstance().run();
     }
 }
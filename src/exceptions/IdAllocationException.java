@@ -0,0 +1,7 @@
+package exceptions;
+
+public class IdAllocationException extends RuntimeException {
+    public IdAllocationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package exceptions;
+
+public class SessionClosedException extends RuntimeException {
+    public SessionClosedException() {
+        super();
+    }
+
+    public SessionClosedException(String message) {
+        super(message);
+    }
+}
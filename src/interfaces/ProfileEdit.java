@@ -6,11 +6,9 @@ import static misc.Constants.IO;
 import static misc.Constants.FORMAT;
 import static misc.Constants.DB;
 import exceptions.UniqueFieldException;
-import models.User;
 import services.HelperService;
 
 import java.sql.SQLException;
-import java.util.Map;
 
 public interface ProfileEdit {
     default void editUsername() {
@@ -19,11 +17,8 @@ public interface ProfileEdit {
                 return false;
             }
 
-            Map<Integer, User> users = DB.getUsers();
-            for (User user : users.values()) {
-                if (user.getUsername().toLowerCase().equals(value.toLowerCase())) {
-                    throw new UniqueFieldException("The username " + value + " is already taken!");
-                }
+            if (DB.getUserByUsername(value) != null) {
+                throw new UniqueFieldException("The username " + value + " is already taken!");
             }
 
             return true;
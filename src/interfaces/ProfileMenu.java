@@ -6,7 +6,7 @@ import misc.Enums.UserMenu;
 import java.sql.SQLException;
 
 public interface ProfileMenu<T extends Formattable> {
-    default void profileMenu(EditMenuCallback editMenuCallback) throws SQLException {
+    default Screen profileMenu(Screen editMenu) throws SQLException {
         String[] options = {
             "Show profile\n", 
             "Edit profile\n", 
@@ -15,7 +15,7 @@ public interface ProfileMenu<T extends Formattable> {
         UserMenu option = UserMenu.values()[IO.getValidInput(options)];
 
         if (option == UserMenu.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
 
         if (option == UserMenu.SHOW) {
@@ -26,15 +26,10 @@ public interface ProfileMenu<T extends Formattable> {
             System.out.println(item.format());
 
             IO.pressAnyKeyToContinue();
-            profileMenu(editMenuCallback);
         }
         else if (option == UserMenu.EDIT) {
-            editMenuCallback.execute();
+            return editMenu;
         }
-    }
-
-    @FunctionalInterface
-    public interface EditMenuCallback {
-        void execute() throws SQLException;
+        return Screen.STAY;
     }
 }
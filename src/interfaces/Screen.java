@@ -0,0 +1,19 @@
+package interfaces;
+
+import exceptions.InvalidFieldException;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/*
+    One menu screen. Showing it handles a single choice and returns where the menu loop goes next:
+    STAY shows the same screen again, BACK returns to the screen that opened it and any other
+    screen is opened on top of this one.
+*/
+@FunctionalInterface
+public interface Screen {
+    Screen STAY = () -> null;
+    Screen BACK = () -> null;
+
+    Screen show() throws SQLException, IOException, InvalidFieldException;
+}
@@ -4,8 +4,12 @@ import repository.GameMasterRepository;
 import services.AuditService;
 import services.FormatterService;
 import services.IOService;
+import services.MenuService;
+import services.RenderService;
+import services.ServerService;
 
-import java.text.SimpleDateFormat;
+import misc.Enums.AuditOverflow;
+import storage.StorageEngine;
 
 public final class Constants {
     // Field validation constants
@@ -17,15 +21,48 @@ public final class Constants {
 
 
     // Database
-    public static final String DATABASE_URL = "jdbc:mysql://localhost:3306/gamemaster";
+    public static final String DATABASE_URL = "jdbc:mysql://localhost:3306/gamemaster?rewriteBatchedStatements=true";
     public static final String DATABASE_USER = "root";
     public static final String DATABASE_PASSWORD = "root";
+    public static final int LOADER_THREADS = 4;
+    public static final int POOL_SIZE = 8;
+    public static final long POOL_IDLE_TIMEOUT = 5 * 60 * 1000;
+    public static final long POOL_BORROW_TIMEOUT = 30 * 1000;
+    public static final int POOL_VALIDATION_TIMEOUT = 2;
+    public static final int STATEMENT_CACHE_SIZE = 64;
+    public static final int BATCH_SIZE = 1000;
+
+
+    // Storage engine ("mysql" or "file")
+    public static final String STORAGE_ENGINE = "mysql";
+    public static final String STORAGE_FOLDER = "data";
+    public static final int ID_BLOCK_SIZE = 50;
+
+
+    // Local snapshot
+    public static final boolean SNAPSHOT_ENABLED = true;
+    public static final String SNAPSHOT_FOLDER = "snapshot";
+    public static final String SNAPSHOT_FILE = "repository.snapshot";
+    public static final String JOURNAL_FILE = "repository.journal";
 
 
     // Logger
     public static final String LOG_FOLDER = "log";
     public static final String ACTIONS_FILE = "actions.csv";
     public static final String LIBRARIES_FILE = "libraries.csv";
+    public static final int AUDIT_QUEUE_CAPACITY = 4096;
+    public static final int AUDIT_BATCH_SIZE = 256;
+    public static final long AUDIT_FLUSH_INTERVAL = 500;
+    public static final AuditOverflow AUDIT_OVERFLOW = AuditOverflow.BLOCK;
+
+
+    // Server mode
+    public static final int SERVER_PORT = 4000;
+    public static final int MAX_SESSIONS = 64;
+
+
+    // Game search
+    public static final int SEARCH_RESULTS = 20;
 
 
     // Colors
@@ -37,13 +74,18 @@ public final class Constants {
     // Date and time formats
     public static final String DATE_FORMAT = "%02d/%02d/%04d"; 
     public static final String TIME_FORMAT = "%02d:%02d:%02d";
+    public static final String DATE_PATTERN = "dd.MM.uuuu";
 
 
     // General utils 
     public static final int PAUSE_DURATION = 1250;
+    public static final int PAGE_SIZE = 10;
     public static final AuditService AUDIT = AuditService.getInstance();
+    public static final RenderService RENDER = RenderService.getInstance();
     public static final IOService IO = IOService.getInstance();
+    public static final MenuService MENU = MenuService.getInstance();
+    public static final ServerService SERVER = ServerService.getInstance();
     public static final FormatterService FORMAT = FormatterService.getInstance();
     public static final GameMasterRepository DB = GameMasterRepository.getInstance();
-    public static final SimpleDateFormat DATE = new SimpleDateFormat("dd.MM.yyyy");
+    public static final StorageEngine STORAGE = GameMasterRepository.getStorage();
 }
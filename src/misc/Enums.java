@@ -11,6 +11,12 @@ public final class Enums {
         RESET_AUDIT;
     }
 
+    public enum AuditOverflow {
+        BLOCK,
+        DROP_NEWEST,
+        DROP_OLDEST;
+    }
+
     public enum AuditMenu {
         GO_BACK,
         ACTIONS,
@@ -60,6 +66,7 @@ public final class Enums {
         SHOW_ALL,
         SHOW,
         BUY,
+        SEARCH,
         REMOVE,
         CHANGE_FILTER,
         CHANGE_SORT;
@@ -71,6 +78,7 @@ public final class Enums {
         SHOW,
         BUY,
         ADD,
+        SEARCH,
         REMOVE,
         CHANGE_FILTER,
         CHANGE_SORT;
@@ -1,35 +1,51 @@
 package models;
 
 import static misc.Constants.IO;
+import static misc.Constants.FORMAT;
 import static misc.Constants.DB;
+import static misc.Constants.STORAGE;
 import misc.Enums.AdminMenu;
 import misc.Enums.AdminAccounts;
 import misc.Enums.AdminEdit;
 import interfaces.Crud;
 import interfaces.ProfileEdit;
 import interfaces.ProfileMenu;
+import interfaces.Screen;
 import services.HelperService;
+import services.Session;
+import repository.UnitOfWork;
+import storage.Schema;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 
 public final class Admin extends User implements Crud<Admin>, ProfileEdit, ProfileMenu {
     // Fields
     private double cutPercentage;
 
 
+    // Storage schema
+    public static final Schema<Integer, Admin> SCHEMA = new Schema<Integer, Admin>(
+        "admin",
+        new String[] { "user_id" },
+        Admin::toRow,
+        Admin::fromRow,
+        Admin::getID,
+        key -> new Object[] { key }
+    )
+        .table("user", USER_COLUMNS)
+        .table("admin", "user_id", "cut_percentage");
+
+
     // Other members
     private final String[] filters = {
         "client", 
         "developer", 
         "publisher"
     };
-    private Integer filterIndex = 0;
 
 
     // Constructors
@@ -62,124 +78,48 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
         return cutPercentage;
     }
 
-    public static Map<Integer, Admin> getAdmins() throws SQLException {
-        Map<Integer, Admin> admins = new HashMap<>();
-
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT admin.user_id, username, password, email, is_banned, type, cut_percentage" +
-                "\nFROM user" +
-                "\nJOIN admin ON user.user_id = admin.user_id"
-            );
-
-        ResultSet rs = preparedStatement.executeQuery();
-        while (rs.next()) {
-            admins.put(
-                rs.getInt("user_id"),
-                new Admin(
-                    rs.getInt("user_id"),
-                    rs.getString("username"),
-                    rs.getString("password"),
-                    rs.getString("email"),
-                    rs.getBoolean("is_banned"),
-                    rs.getString("type"),
-                    rs.getDouble("cut_percentage")
-                )
-            );
-        }
+    private static Admin fromRow(Object[] row) {
+        return new Admin(
+            Schema.toInteger(row[0]),
+            (String)row[1],
+            (String)row[2],
+            (String)row[3],
+            Schema.toBoolean(row[4]),
+            (String)row[5],
+            Schema.toDouble(row[6])
+        );
+    }
 
-        return admins;
+    public static Map<Integer, Admin> getAdmins() throws SQLException {
+        return STORAGE.getAdmins().loadAll();
     }
 
 
     // Crud Interface
+    private Object[] toRow() {
+        return toUserRow(cutPercentage);
+    }
+
     @Override
     public int create() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "INSERT INTO user VALUES (?, ?, ?, ?, ?, ?)"
-            );
-
-        preparedStatement.setInt(1, ID);
-        preparedStatement.setString(2, username);
-        preparedStatement.setString(3, password);
-        preparedStatement.setString(4, email);
-        preparedStatement.setBoolean(5, isBanned);
-        preparedStatement.setString(6, type);
-
-        preparedStatement.executeUpdate();
-
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "INSERT INTO admin VALUES (?, ?)"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.setDouble(2, cutPercentage);
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            DB.modifyAdmins(this, "create");
 
-        DB.modifyAdmins(this, "create");
+            int response = STORAGE.getAdmins().insert(this);
 
-        return preparedStatement.executeUpdate();
+            work.commit();
+            return response;
+        }
     }
 
     @Override
     public Admin read() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT admin.user_id, username, password, email, is_banned, type, cut_percentage" +
-                "\nFROM user" +
-                "\nJOIN admin ON user.user_id = admin.user_id" +
-                "\nWHERE admin.user_id = ?"
-            );
-
-        preparedStatement.setInt(1, ID);
-        ResultSet rs = preparedStatement.executeQuery();
-        if (rs.next()) {
-            return new Admin(
-                rs.getInt("user_id"),
-                rs.getString("username"),
-                rs.getString("password"),
-                rs.getString("email"),
-                rs.getBoolean("is_banned"),
-                rs.getString("type"),
-                rs.getDouble("cut_percentage")
-            );
-        }
-        return null;
+        return STORAGE.getAdmins().find(ID);
     }
 
     @Override
     public int update(String column, String value, String type) throws SQLException {
-        PreparedStatement preparedStatement;
-
-        if (column.equals("cut_percentage")) {
-            preparedStatement = DB.getConnection()
-                .prepareStatement(
-                    "UPDATE admin" +
-                    "\nSET " + column + " = ?" +
-                    "\nWHERE user_id = ?"
-                );
-        }
-        else {
-            preparedStatement = DB.getConnection()
-                .prepareStatement(
-                    "UPDATE user" +
-                    "\nSET " + column + " = ?" +
-                    "\nWHERE user_id = ?"
-                );
-        }
-
-        if (type.equals("double")) {
-            preparedStatement.setDouble(1, Double.parseDouble(value));
-        }
-        else if (type.equals("boolean")) {
-            preparedStatement.setBoolean(1, Boolean.parseBoolean(value));
-        }
-        else {
-            preparedStatement.setString(1, value);
-        }
-        preparedStatement.setInt(2, ID);
-        
-        int response = preparedStatement.executeUpdate();
+        int response = STORAGE.getAdmins().update(ID, column, FORMAT.valueForDB(value, type));
 
         DB.modifyAdmins(this.read(), "update");
 
@@ -188,24 +128,34 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
 
     @Override
     public int delete() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM admin" +
-                "\nWHERE user_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.executeUpdate();
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            DB.modifyAdmins(this, "delete");
 
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM user" +
-                "\nWHERE user_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
+            int response = STORAGE.getAdmins().delete(this);
+
+            work.commit();
+            return response;
+        }
+    }
+
+    public static int createAll(Collection<Admin> admins) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getAdmins().insertAll(admins);
+            DB.modifyAll(admins, "create", admin -> DB.modifyAdmins(admin, "create"));
+
+            work.commit();
+            return response;
+        }
+    }
 
-        DB.modifyAdmins(this, "delete");
+    public static int deleteAll(Collection<Admin> admins) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getAdmins().deleteAll(admins);
+            DB.modifyAll(admins, "delete", admin -> DB.modifyAdmins(admin, "delete"));
 
-        return preparedStatement.executeUpdate();
+            work.commit();
+            return response;
+        }
     }
 
 
@@ -252,32 +202,40 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
 
 
     // Menu Helpers
+    // Filter and sorting choices are kept in the session, as the same account can be open in several
     private void resetMenu() {
-        filterIndex = 0;
+        Session.current().setFilterIndex(0);
+    }
+
+    private String filter() {
+        return filters[Session.current().getFilterIndex() % filters.length];
+    }
+
+    private void nextFilter() {
+        Session.current().setFilterIndex((Session.current().getFilterIndex() + 1) % filters.length);
     }
 
 
     // Menus
-    private void accountsMenu() throws SQLException {
+    private Screen accountsMenu() throws SQLException {
         String[] options = {
             "Show all\n", 
-            "Show " + filters[filterIndex] + "s\n", 
-            "Add " + filters[filterIndex] + '\n', 
-            "Ban " + filters[filterIndex] + '\n', 
-            "Unban " + filters[filterIndex] + '\n', 
-            "Remove " + filters[filterIndex] + '\n', 
+            "Show " + filter() + "s\n", 
+            "Add " + filter() + '\n', 
+            "Ban " + filter() + '\n', 
+            "Unban " + filter() + '\n', 
+            "Remove " + filter() + '\n', 
             "Change filter\n", 
             "Go back\n"
         };
         AdminAccounts option = AdminAccounts.values()[IO.getValidInput(options)];
 
         if (option == AdminAccounts.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
         if (option == AdminAccounts.CHANGE_FILTER) {
-            filterIndex = (filterIndex + 1) % filters.length;
-            accountsMenu();
-            return;
+            nextFilter();
+            return Screen.STAY;
         }
 
         List<User> users = new ArrayList<>(DB.getUsers().values());
@@ -288,11 +246,10 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
                 users, 
                 "No accounts to show!"
             );
-            accountsMenu();
-            return;
+            return Screen.STAY;
         }
 
-        users = User.filterByType(users, filters[filterIndex]);
+        users = User.filterByType(users, filter());
         if (option == AdminAccounts.SHOW) {
             IO.printItems(
                 users, 
@@ -300,20 +257,18 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
             );
         }
         else if (option == AdminAccounts.ADD) {
-            if (filters[filterIndex].equals("client")) {
+            if (filter().equals("client")) {
                 Client client = Client.getFromInput();
                 if (client == null) {
-                    accountsMenu();
-                    return;
+                    return Screen.STAY;
                 }
 
                 client.create();
             }
             else {
-                Provider provider = Provider.getFromInput(filters[filterIndex]);
+                Provider provider = Provider.getFromInput(filter());
                 if (provider == null) {
-                    accountsMenu();
-                    return;
+                    return Screen.STAY;
                 }
 
                 provider.create();
@@ -331,8 +286,7 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
                 "No accounts to show!"
             );
             if (user == null) {
-                accountsMenu();
-                return;
+                return Screen.STAY;
             }
 
             if (user.getType().equals("client")) {
@@ -345,10 +299,10 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
             }
         }
 
-        accountsMenu();
+        return Screen.STAY;
     }
 
-    private void editMenu() throws SQLException {
+    private Screen editMenu() throws SQLException {
         String[] options = {
             "Edit username\n", 
             "Edit password\n", 
@@ -359,8 +313,7 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
         AdminEdit option = AdminEdit.values()[IO.getValidInput(options)];
 
         if (option == AdminEdit.GO_BACK) {
-            profileMenu(this::editMenu);
-            return;
+            return Screen.BACK;
         }
 
         if (option == AdminEdit.EDIT_USERNAME) {
@@ -376,11 +329,11 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
             editCutPercentage();
         }
 
-        editMenu();
+        return Screen.STAY;
     }
 
     @Override
-    public void menu() throws SQLException {
+    public Screen menu() throws SQLException {
         String[] options = {
             "Manage accounts\n", 
             "Profile\n", 
@@ -389,19 +342,19 @@ public final class Admin extends User implements Crud<Admin>, ProfileEdit, Profi
         AdminMenu option = AdminMenu.values()[IO.getValidInput(options)];
 
         if (option == AdminMenu.LOG_OUT) {
-            return;
+            return Screen.BACK;
         }
 
         IO.printLogo();
         resetMenu();
 
         if (option == AdminMenu.MANAGE_ACCOUNTS) {
-            accountsMenu();
+            return this::accountsMenu;
         }
         else if (option == AdminMenu.PROFILE) {
-            profileMenu(this::editMenu);
+            return () -> profileMenu(this::editMenu);
         }
 
-        menu();
+        return Screen.STAY;
     }
 }
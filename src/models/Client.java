@@ -6,7 +6,8 @@ import static misc.Constants.PHONE_REGEX;
 import static misc.Constants.AUDIT;
 import static misc.Constants.IO;
 import static misc.Constants.DB;
-import static misc.Constants.DATE;
+import static misc.Constants.FORMAT;
+import static misc.Constants.STORAGE;
 import exceptions.InvalidFieldException;
 import exceptions.UniqueFieldException;
 import misc.Enums.ClientMenu;
@@ -16,16 +17,19 @@ import misc.Enums.ClientEdit;
 import interfaces.Crud;
 import interfaces.ProfileEdit;
 import interfaces.ProfileMenu;
+import interfaces.Screen;
 import services.HelperService;
+import services.Session;
+import repository.LibraryStats;
+import repository.UnitOfWork;
+import storage.Schema;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Date;
+import java.util.Collection;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 import org.apache.commons.lang3.tuple.Pair;
 
 public final class Client extends User implements Crud<Client>, ProfileEdit, ProfileMenu {
@@ -35,6 +39,19 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
     private String phoneNumber;
 
 
+    // Storage schema
+    public static final Schema<Integer, Client> SCHEMA = new Schema<Integer, Client>(
+        "client",
+        new String[] { "user_id" },
+        Client::toRow,
+        Client::fromRow,
+        Client::getID,
+        key -> new Object[] { key }
+    )
+        .table("user", USER_COLUMNS)
+        .table("client", "user_id", "first_name", "last_name", "phone_number");
+
+
     // Other members
     private final String[] filters = {
         "game", 
@@ -45,8 +62,6 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         "Price", 
         "Release date"
     };
-    private Integer filterIndex = 0;
-    private Integer sortIndex = 0;
 
 
     // Constructors
@@ -93,62 +108,22 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         return phoneNumber;
     }
 
-    public static Map<Integer, Client> getClients() throws SQLException {
-        Map<Integer, Client> clients = new HashMap<>();
-
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT client.user_id, username, password, email, is_banned, type, first_name, last_name, phone_number" +
-                "\nFROM user" +
-                "\nJOIN client ON user.user_id = client.user_id"
-            );
-
-        ResultSet rs = preparedStatement.executeQuery();
-        while (rs.next()) {
-            clients.put(
-                rs.getInt("user_id"),
-                new Client(
-                    rs.getInt("user_id"),
-                    rs.getString("username"),
-                    rs.getString("password"),
-                    rs.getString("email"),
-                    rs.getBoolean("is_banned"),
-                    rs.getString("type"),
-                    rs.getString("first_name"),
-                    rs.getString("last_name"),
-                    rs.getString("phone_number")
-                )
-            );
-        }
-
-        return clients;
+    private static Client fromRow(Object[] row) {
+        return new Client(
+            Schema.toInteger(row[0]),
+            (String)row[1],
+            (String)row[2],
+            (String)row[3],
+            Schema.toBoolean(row[4]),
+            (String)row[5],
+            (String)row[6],
+            (String)row[7],
+            (String)row[8]
+        );
     }
 
-    public static List<String> getInfo(Integer clientID) throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT"+
-                "\n    username," +
-                "\n    COUNT(CASE WHEN game.type = 'game' THEN 1 END) AS no_games," +
-                "\n    COUNT(CASE WHEN game.type = 'dlc' THEN 1 END) AS no_dlcs," +
-                "\n    SUM(purchase.price) AS money_spend" +
-                "\nFROM purchase" +
-                "\nJOIN game ON purchase.game_id = game.game_id" +
-                "\nJOIN user ON purchase.user_id = user.user_id" +
-                "\nWHERE purchase.user_id = ?"
-            );
-
-        preparedStatement.setInt(1, clientID);
-        ResultSet rs = preparedStatement.executeQuery();
-        if (rs.next()) {
-            return List.of(
-                rs.getString("username"),
-                rs.getString("no_games"),
-                rs.getString("no_dlcs"),
-                rs.getString("money_spend")
-            );
-        }
-        return null;
+    public static Map<Integer, Client> getClients() throws SQLException {
+        return STORAGE.getClients().loadAll();
     }
 
     public static Client getFromInput() {
@@ -158,11 +133,8 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
             if (value.isEmpty()) {
                 throw new InvalidFieldException("The username must not be empty!");
             }
-            Map<Integer, User> users = DB.getUsers();
-            for (User user : users.values()) {
-                if (user.getUsername().toLowerCase().equals(value.toLowerCase())) {
-                    throw new UniqueFieldException("The username " + value + " is already taken!");
-                }
+            if (DB.getUserByUsername(value) != null) {
+                throw new UniqueFieldException("The username " + value + " is already taken!");
             }
             return true;
         };
@@ -241,7 +213,7 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         }
 
         return new Client(
-            User.nextID + 1, 
+            User.allocateID(), 
             username, 
             password, 
             email.isEmpty() ? "" : email, 
@@ -255,92 +227,30 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
 
 
     // Crud interface
+    private Object[] toRow() {
+        return toUserRow(firstName, lastName, phoneNumber);
+    }
+
     @Override
     public int create() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement("INSERT INTO user VALUES (?, ?, ?, ?, ?, ?)");
-        preparedStatement.setInt(1, ID);
-        preparedStatement.setString(2, username);
-        preparedStatement.setString(3, password);
-        preparedStatement.setString(4, email);
-        preparedStatement.setBoolean(5, isBanned);
-        preparedStatement.setString(6, type);
-
-        preparedStatement.executeUpdate();
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            DB.modifyClients(this, "create");
 
-        preparedStatement = DB.getConnection()
-            .prepareStatement("INSERT INTO client VALUES (?, ?, ?, ?)");
-        preparedStatement.setInt(1, ID);
-        preparedStatement.setString(2, firstName);
-        preparedStatement.setString(3, lastName);
-        preparedStatement.setString(4, phoneNumber);
+            int response = STORAGE.getClients().insert(this);
 
-        DB.modifyClients(this, "create");
-
-        return preparedStatement.executeUpdate();
+            work.commit();
+            return response;
+        }
     }
 
     @Override
     public Client read() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT client.user_id, username, password, email, is_banned, type, first_name, last_name, phone_number" +
-                "\nFROM user" +
-                "\nJOIN client ON user.user_id = client.user_id" +
-                "\nWHERE client.user_id = ?"
-            );
-
-        preparedStatement.setInt(1, ID);
-        ResultSet rs = preparedStatement.executeQuery();
-        if (rs.next()) {
-            return new Client(
-                rs.getInt("user_id"),
-                rs.getString("username"),
-                rs.getString("password"),
-                rs.getString("email"),
-                rs.getBoolean("is_banned"),
-                rs.getString("type"),
-                rs.getString("first_name"),
-                rs.getString("last_name"),
-                rs.getString("phone_number")
-            );
-        }
-        return null;
+        return STORAGE.getClients().find(ID);
     }
 
     @Override
     public int update(String column, String value, String type) throws SQLException {
-        PreparedStatement preparedStatement;
-
-        if (column.equals("first_name") || column.equals("last_name") || column.equals("phone_number")) {
-            preparedStatement = DB.getConnection()
-                .prepareStatement(
-                    "UPDATE client" +
-                    "\nSET " + column + " = ?" +
-                    "\nWHERE user_id = ?"
-                );
-        }
-        else {
-            preparedStatement = DB.getConnection()
-                .prepareStatement(
-                    "UPDATE user" +
-                    "\nSET " + column + " = ?" +
-                    "\nWHERE user_id = ?"
-                );
-        }
-
-        if (type.equals("double")) {
-            preparedStatement.setDouble(1, Double.parseDouble(value));
-        }
-        else if (type.equals("boolean")) {
-            preparedStatement.setBoolean(1, Boolean.parseBoolean(value));
-        }
-        else {
-            preparedStatement.setString(1, value);
-        }
-        preparedStatement.setInt(2, ID);
-
-        int response = preparedStatement.executeUpdate();
+        int response = STORAGE.getClients().update(ID, column, FORMAT.valueForDB(value, type));
 
         DB.modifyClients(this.read(), "update");
 
@@ -349,38 +259,34 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
 
     @Override
     public int delete() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM purchase" +
-                "\nWHERE user_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.executeUpdate();
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            DB.modifyClients(this, "delete");
 
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM wishlist" +
-                "\nWHERE user_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.executeUpdate();
+            int response = STORAGE.getClients().delete(this);
 
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM client" +
-                "\nWHERE user_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.executeUpdate();
+            work.commit();
+            return response;
+        }
+    }
 
-        preparedStatement = DB.getConnection()
-            .prepareStatement("DELETE FROM user"
-                              + "\nWHERE user_id = ?");
-        preparedStatement.setInt(1, ID);
+    public static int createAll(Collection<Client> clients) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getClients().insertAll(clients);
+            DB.modifyAll(clients, "create", client -> DB.modifyClients(client, "create"));
 
-        DB.modifyClients(this, "delete");
+            work.commit();
+            return response;
+        }
+    }
+
+    public static int deleteAll(Collection<Client> clients) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getClients().deleteAll(clients);
+            DB.modifyAll(clients, "delete", client -> DB.modifyClients(client, "delete"));
 
-        return preparedStatement.executeUpdate();
+            work.commit();
+            return response;
+        }
     }
 
 
@@ -415,23 +321,44 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
 
     // Formattable interface
     public String format() {
+        LibraryStats stats = DB.getLibraryStats(ID);
         return super.format() + 
                "\nFirst name: " + firstName + 
                "\nLast name: " + lastName + 
-               "\nPhone number: " + (phoneNumber.isEmpty() ? "N/A" : phoneNumber);
+               "\nPhone number: " + (phoneNumber.isEmpty() ? "N/A" : phoneNumber) +
+               "\nGames owned: " + stats.getGames() +
+               "\nDLCs owned: " + stats.getDLCs() +
+               "\nMoney spent: " + stats.getSpent() + " RON";
     }
 
 
     // Menu Helpers
+    // Filter and sorting choices are kept in the session, as the same account can be open in several
     private void resetMenu() {
-        filterIndex = 0;
-        sortIndex = 0;
+        Session.current().setFilterIndex(0);
+        Session.current().setSortIndex(0);
+    }
+
+    private String filter() {
+        return filters[Session.current().getFilterIndex() % filters.length];
+    }
+
+    private void nextFilter() {
+        Session.current().setFilterIndex((Session.current().getFilterIndex() + 1) % filters.length);
+    }
+
+    private String sortOption() {
+        return sortOptions[Session.current().getSortIndex() % sortOptions.length];
+    }
+
+    private void nextSortOption() {
+        Session.current().setSortIndex((Session.current().getSortIndex() + 1) % sortOptions.length);
     }
 
     private void buyGame(List<Game> games) throws SQLException {
         Game game = IO.selectFromOptions(
             games, 
-            "No " + filters[filterIndex] + " to buy!"
+            "No " + filter() + " to buy!"
         );
         if (game == null) {
             return;
@@ -440,7 +367,7 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         Purchase newPurchase = new Purchase(
             game.getID(), 
             ID,
-            DATE.format(new Date()), 
+            LocalDate.now(), 
             game.getPrice()
         );
         newPurchase.create();
@@ -451,20 +378,24 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
     private void buyGameFromWishlist(List<Wishlist> wishlist) throws SQLException {
         Wishlist wishlistItem = IO.selectFromOptions(
             wishlist, 
-            "No " + filters[filterIndex] + " to buy!"
+            "No " + filter() + " to buy!"
         );
         if (wishlistItem == null) {
             return;
         }
 
-        Purchase newPurchase = new Purchase(
-            wishlistItem.getGameID(), 
-            ID,
-            DATE.format(new Date()), 
-            wishlistItem.getPrice()
-        );
-        newPurchase.create();
-        wishlistItem.delete();
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            Purchase newPurchase = new Purchase(
+                wishlistItem.getGameID(), 
+                ID,
+                LocalDate.now(), 
+                wishlistItem.getPrice()
+            );
+            newPurchase.create();
+            wishlistItem.delete();
+
+            work.commit();
+        }
 
         AUDIT.writeToLibrariesCSV(this.getID());
 
@@ -473,7 +404,7 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
     private void removeFromLibrary(List<Purchase> purchases) throws SQLException {
         Purchase purchase = IO.selectFromOptions(
             purchases, 
-            "No " + filters[filterIndex] + "s owned!"
+            "No " + filter() + "s owned!"
         );
         if (purchase == null) {
             return;
@@ -485,7 +416,7 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
     private void addToWishlist(List<Game> games) throws SQLException {
         Game game = IO.selectFromOptions(
             games, 
-            "No " + filters[filterIndex] + " to add to wishlist!"
+            "No " + filter() + " to add to wishlist!"
         );
         if (game == null) {
             return;
@@ -494,7 +425,7 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         Wishlist newWishlistItem = new Wishlist(
             game.getID(), 
             ID,
-            DATE.format(new Date())
+            LocalDate.now()
         );
         newWishlistItem.create();
     }
@@ -502,7 +433,7 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
     private void removeFromWishlist(List<Wishlist> wishlist) throws SQLException {
         Wishlist wishlistItem = IO.selectFromOptions(
             wishlist, 
-            "No " + filters[filterIndex] + "s owned!"
+            "No " + filter() + "s owned!"
         );
         if (wishlistItem == null) {
             return;
@@ -513,40 +444,36 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
 
 
     // Menus
-    private void libraryMenu() throws SQLException {
+    private Screen libraryMenu() throws SQLException {
         String[] options = {
             "Show all\n", 
-            "Show " + filters[filterIndex] + "s\n", 
-            "Buy " + filters[filterIndex] + '\n', 
-            "Remove " + filters[filterIndex] + '\n', 
+            "Show " + filter() + "s\n", 
+            "Buy " + filter() + '\n', 
+            "Search " + filter() + "s to buy\n", 
+            "Remove " + filter() + '\n', 
             "Change filter\n",
-            "Change sorting criteria (" + sortOptions[sortIndex] + ")\n",
+            "Change sorting criteria (" + sortOption() + ")\n",
             "Go back\n"
         };
         ClientLibrary option = ClientLibrary.values()[IO.getValidInput(options)];
 
         if (option == ClientLibrary.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
         if (option == ClientLibrary.CHANGE_FILTER) {
-            filterIndex = (filterIndex + 1) % filters.length;
-            libraryMenu();
-            return;
+            nextFilter();
+            return Screen.STAY;
         }
         if (option == ClientLibrary.CHANGE_SORT) {
-            sortIndex = (sortIndex + 1) % sortOptions.length;
-            libraryMenu();
-            return;
+            nextSortOption();
+            return Screen.STAY;
         }
 
         IO.printLogo();
-        List<Purchase> purchases = Purchase.filterByUser(
-            new ArrayList<>(DB.getPurchases().values()),
-            ID
-        );
+        List<Purchase> purchases = DB.getPurchasesOfUser(ID);
         purchases = Purchase.sortByCriteria(
             purchases, 
-            sortOptions[sortIndex]
+            sortOption()
         );
 
         if (option == ClientLibrary.SHOW_ALL) {
@@ -557,19 +484,19 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         }
         else if (option == ClientLibrary.SHOW) {
             IO.printItems(
-                Purchase.filterByType(purchases, filters[filterIndex]), 
-                "No " + filters[filterIndex] + "s owned!"
+                Purchase.filterByType(purchases, filter()), 
+                "No " + filter() + "s owned!"
             );
         }
         else if (option == ClientLibrary.BUY) {
-            if (filters[filterIndex].equals("game")) {
+            if (filter().equals("game")) {
                 buyGame(
                     Game.sortByCriteria(
                         Game.filterByType(
                             Game.filterDisowned(ID), 
-                            filters[filterIndex]
+                            filter()
                         ),
-                        sortOptions[sortIndex]
+                        sortOption()
                     )
                 );
             }
@@ -578,55 +505,61 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
                     Game.sortByCriteria(
                         Game.filterByType(
                             DLC.filterDisowned(ID), 
-                            filters[filterIndex]
+                            filter()
                         ),
-                        sortOptions[sortIndex]
+                        sortOption()
                     )
                 );
             }
         }
+        else if (option == ClientLibrary.SEARCH) {
+            List<Game> games;
+            if (filter().equals("game")) {
+                games = Game.filterDisowned(ID);
+            }
+            else {
+                games = DLC.filterDisowned(ID);
+            }
+            buyGame(Game.searchByName(games, IO.getUserInput("Search: ")));
+        }
         else if (option == ClientLibrary.REMOVE) {
-            removeFromLibrary(Purchase.filterByType(purchases, filters[filterIndex]));
+            removeFromLibrary(Purchase.filterByType(purchases, filter()));
         }
 
-        libraryMenu();
+        return Screen.STAY;
     }
 
-    private void wishlistMenu() throws SQLException {
+    private Screen wishlistMenu() throws SQLException {
         String[] options = {
             "Show all\n", 
-            "Show " + filters[filterIndex] + "s\n",
-            "Buy " + filters[filterIndex] + '\n',
-            "Add " + filters[filterIndex] + '\n', 
-            "Remove " + filters[filterIndex] + '\n', 
+            "Show " + filter() + "s\n",
+            "Buy " + filter() + '\n',
+            "Add " + filter() + '\n', 
+            "Search " + filter() + "s to add\n", 
+            "Remove " + filter() + '\n', 
             "Change filter\n",
-            "Change sorting criteria (" + sortOptions[sortIndex] + ")\n",
+            "Change sorting criteria (" + sortOption() + ")\n",
             "Go back\n"
         };
         ClientWishlist option = ClientWishlist.values()[IO.getValidInput(options)];
 
         if (option == ClientWishlist.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
         if (option == ClientWishlist.CHANGE_FILTER) {
-            filterIndex = (filterIndex + 1) % filters.length;
-            wishlistMenu();
-            return;
+            nextFilter();
+            return Screen.STAY;
         }
         if (option == ClientWishlist.CHANGE_SORT) {
-            sortIndex = (sortIndex + 1) % sortOptions.length;
-            wishlistMenu();
-            return;
+            nextSortOption();
+            return Screen.STAY;
         }
 
         IO.printLogo();
-        List<Wishlist> wishlist = Wishlist.filterByUser(
-            new ArrayList<>(DB.getWishlists().values()),
-            ID
-        );
+        List<Wishlist> wishlist = DB.getWishlistsOfUser(ID);
         wishlist = Wishlist.sortByCriteria(
             wishlist, 
-            sortOptions[sortIndex]
+            sortOption()
         );
 
         if (option == ClientWishlist.SHOW_ALL) {
@@ -637,8 +570,8 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         }
         else if (option == ClientWishlist.SHOW) {
             IO.printItems(
-                Wishlist.filterByType(wishlist, filters[filterIndex]), 
-                "No " + filters[filterIndex] + "s in wishlist!"
+                Wishlist.filterByType(wishlist, filter()), 
+                "No " + filter() + "s in wishlist!"
             );
         }
         else if (option == ClientWishlist.BUY) {
@@ -648,13 +581,13 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
                         wishlist, 
                         true
                     ), 
-                    filters[filterIndex]
+                    filter()
                 )
             );
         }
         else if (option == ClientWishlist.ADD) {
             List<Game> games;
-            if (filters[filterIndex].equals("game")) {
+            if (filter().equals("game")) {
                 games = Game.filterNotInWishlist(ID);
             }
             else {
@@ -662,18 +595,28 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
             }
             games = Game.sortByCriteria(
                 games, 
-                sortOptions[sortIndex]
+                sortOption()
             );
-            addToWishlist(Game.filterByType(games, filters[filterIndex]));
+            addToWishlist(Game.filterByType(games, filter()));
+        }
+        else if (option == ClientWishlist.SEARCH) {
+            List<Game> games;
+            if (filter().equals("game")) {
+                games = Game.filterNotInWishlist(ID);
+            }
+            else {
+                games = DLC.filterNotInWishlist(ID);
+            }
+            addToWishlist(Game.searchByName(games, IO.getUserInput("Search: ")));
         }
         else if (option == ClientWishlist.REMOVE) {
-            removeFromWishlist(Wishlist.filterByType(wishlist, filters[filterIndex]));
+            removeFromWishlist(Wishlist.filterByType(wishlist, filter()));
         }
 
-        wishlistMenu();
+        return Screen.STAY;
     }
 
-    private void editMenu() throws SQLException {
+    private Screen editMenu() throws SQLException {
         String[] options = {
             "Edit username\n", 
             "Edit password\n", 
@@ -686,8 +629,7 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         ClientEdit option = ClientEdit.values()[IO.getValidInput(options)];
 
         if (option == ClientEdit.GO_BACK) {
-            profileMenu(this::editMenu);
-            return;
+            return Screen.BACK;
         }
         if (option == ClientEdit.EDIT_USERNAME) {
             editUsername();
@@ -707,11 +649,11 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         else if (option == ClientEdit.EDIT_PHONE_NUMBER) {
             editPhoneNumber();
         }
-        editMenu();
+        return Screen.STAY;
     }
 
     @Override
-    public void menu() throws SQLException {
+    public Screen menu() throws SQLException {
         String[] options = {
             "Library\n", 
             "Wishlist\n", 
@@ -721,22 +663,22 @@ public final class Client extends User implements Crud<Client>, ProfileEdit, Pro
         ClientMenu option = ClientMenu.values()[IO.getValidInput(options)];
 
         if (option == ClientMenu.LOG_OUT) {
-            return;
+            return Screen.BACK;
         }
 
         IO.printLogo();
         resetMenu();
 
         if (option == ClientMenu.LIBRARY) {
-            libraryMenu();
+            return this::libraryMenu;
         }
         else if (option == ClientMenu.WISHLIST) {
-            wishlistMenu();
+            return this::wishlistMenu;
         }
         else if (option == ClientMenu.PROFILE) {
-            profileMenu(this::editMenu);
+            return () -> profileMenu(this::editMenu);
         }
 
-        menu();
+        return Screen.STAY;
     }
 }
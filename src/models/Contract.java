@@ -1,24 +1,23 @@
 package models;
 
-import static misc.Constants.DATE_REGEX;
 import static misc.Constants.IO;
 import static misc.Constants.FORMAT;
 import static misc.Constants.DB;
-import static misc.Constants.DATE;
+import static misc.Constants.STORAGE;
 import exceptions.InvalidFieldException;
 import exceptions.UniqueFieldException;
 import interfaces.Crud;
 import interfaces.Formattable;
+import repository.UnitOfWork;
 import services.HelperService;
+import storage.Schema;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.function.Predicate;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -27,16 +26,28 @@ public final class Contract implements Crud<Contract>, Formattable {
     private Integer developerID;
     private Integer publisherID;
     private String status;
-    private String startDate;
-    private String endDate;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+
+    // Storage schema
+    public static final Schema<Pair<Integer, Integer>, Contract> SCHEMA = new Schema<Pair<Integer, Integer>, Contract>(
+        "contract",
+        new String[] { "developer_id", "publisher_id" },
+        Contract::toRow,
+        Contract::fromRow,
+        Contract::getID,
+        key -> new Object[] { key.getLeft(), key.getRight() }
+    )
+        .table("contract", "developer_id", "publisher_id", "status", "start_date", "end_date");
 
 
     // Consturctors
     public Contract(Integer developerID, 
                     Integer publisherID, 
                     String status, 
-                    String startDate, 
-                    String endDate) {
+                    LocalDate startDate, 
+                    LocalDate endDate) {
         this.developerID = developerID;
         this.publisherID = publisherID;
         this.status = status;
@@ -59,8 +70,8 @@ public final class Contract implements Crud<Contract>, Formattable {
         return "Developer: " + getDeveloperUsername() +
                " \nPublisher: " + getPublisherUsername() +
                " \nStatus: " + status +
-               " \nStart date: " + startDate +
-               " \nEnd date: " + endDate + '\n';
+               " \nStart date: " + FORMAT.formatDate(startDate) +
+               " \nEnd date: " + FORMAT.formatDate(endDate) + '\n';
     }
 
     @Override
@@ -99,37 +110,26 @@ public final class Contract implements Crud<Contract>, Formattable {
         return status;
     }
 
-    public String getStartDate() {
+    public LocalDate getStartDate() {
         return startDate;
     }
 
-    public String getEndDate() {
+    public LocalDate getEndDate() {
         return endDate;
     }
 
-    public static Map<Pair<Integer, Integer>, Contract> getContracts() throws SQLException {
-        Map<Pair<Integer, Integer>, Contract> contracts = new HashMap<>();
-
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT * FROM contract"
-            );
-
-        ResultSet rs = preparedStatement.executeQuery();
-        while (rs.next()) {
-            contracts.put(
-                Pair.of(rs.getInt("developer_id"), rs.getInt("publisher_id")),
-                new Contract(
-                    rs.getInt("developer_id"),
-                    rs.getInt("publisher_id"),
-                    rs.getString("status"),
-                    FORMAT.dateForClass(rs.getDate("start_date").toString()),
-                    FORMAT.dateForClass(rs.getDate("end_date").toString())
-                )
-            );
-        }
+    private static Contract fromRow(Object[] row) {
+        return new Contract(
+            Schema.toInteger(row[0]),
+            Schema.toInteger(row[1]),
+            (String)row[2],
+            Schema.toDate(row[3]),
+            Schema.toDate(row[4])
+        );
+    }
 
-        return contracts;
+    public static Map<Pair<Integer, Integer>, Contract> getContracts() throws SQLException {
+        return STORAGE.getContracts().loadAll();
     }
 
     public static Contract getFromInput(Integer publisherID) {
@@ -144,28 +144,25 @@ public final class Contract implements Crud<Contract>, Formattable {
         }
 
         Integer developerID = developer.getID();
-        String startDate = DATE.format(new Date());
-        String defaultEndDate = FORMAT.addOneYear(startDate);
+        LocalDate startDate = LocalDate.now();
+        LocalDate defaultEndDate = FORMAT.addOneYear(startDate);
 
         IO.printLogo();
         System.out.println("< Contract >");
         System.out.println("Developer: " + developer.getUsername());
-        System.out.println("Start date: " + startDate);
+        System.out.println("Start date: " + FORMAT.formatDate(startDate));
 
         String endDate = HelperService.getInput(
             value -> {
                 if (value.isEmpty()) {
                     return true;
                 }
-                if (value.compareTo(startDate) < 0) {
+                if (FORMAT.parseInputDate(value).isBefore(startDate)) {
                     throw new InvalidFieldException("End date must be after the start date!");
                 }
-                if (!value.matches(DATE_REGEX)) {
-                    throw new InvalidFieldException("Invalid date format!");
-                }
                 return true;
             },
-            "End date (default: " + defaultEndDate + "): "
+            "End date (default: " + FORMAT.formatDate(defaultEndDate) + "): "
         );
         if (endDate == null) {
             return null;
@@ -176,7 +173,7 @@ public final class Contract implements Crud<Contract>, Formattable {
             publisherID, 
             "pending", 
             startDate, 
-            (endDate.isEmpty() ? defaultEndDate : endDate)
+            (endDate.isEmpty() ? defaultEndDate : FORMAT.parseDate(endDate))
         );
     }
 
@@ -197,65 +194,35 @@ public final class Contract implements Crud<Contract>, Formattable {
 
 
     // Crud interface
+    private Object[] toRow() {
+        return new Object[] {
+            developerID,
+            publisherID,
+            status,
+            FORMAT.dateForDB(startDate),
+            FORMAT.dateForDB(endDate)
+        };
+    }
+
     @Override
     public int create() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "INSERT INTO contract VALUES (?, ?, ?, ?, ?)"
-            );
-        preparedStatement.setInt(1, developerID);
-        preparedStatement.setInt(2, publisherID);
-        preparedStatement.setString(3, status);
-        preparedStatement.setDate(4, FORMAT.dateForDB(startDate));
-        preparedStatement.setDate(5, FORMAT.dateForDB(endDate));
-
         DB.modifyContracts(this, "create");
 
-        return preparedStatement.executeUpdate();
+        return STORAGE.getContracts().insert(this);
     }
 
     @Override 
     public Contract read() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT *" +
-                "\nFROM contract" +
-                "\nWHERE developer_id = ? AND publisher_id = ?"
-            );
-        preparedStatement.setInt(1, developerID);
-        preparedStatement.setInt(2, publisherID);
-
-        ResultSet rs = preparedStatement.executeQuery();
-        if (rs.next()) {
-            return new Contract(
-                rs.getInt("developer_id"),
-                rs.getInt("publisher_id"),
-                rs.getString("status"),
-                FORMAT.dateForClass(rs.getDate("start_date").toString()),
-                FORMAT.dateForClass(rs.getDate("end_date").toString())
-            );
-        }
-        return null;
+        return STORAGE.getContracts().find(getID());
     }
 
     @Override
     public int update(String column, String value, String type) throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "UPDATE contract" +
-                "\nSET " + column + " = ?" +
-                "\nWHERE developer_id = ? AND publisher_id = ?"
-            );
-        if (type.equals("date")) {
-            preparedStatement.setDate(1, FORMAT.dateForDB(value));
-        } 
-        else {
-            preparedStatement.setString(1, value);
-        }
-        preparedStatement.setInt(2, developerID);
-        preparedStatement.setInt(3, publisherID);
-
-        int response = preparedStatement.executeUpdate();
+        int response = STORAGE.getContracts().update(
+            getID(),
+            column,
+            type.equals("date") ? FORMAT.dateForDB(FORMAT.parseDate(value)) : value
+        );
 
         DB.modifyContracts(this.read(), "update");
 
@@ -264,17 +231,29 @@ public final class Contract implements Crud<Contract>, Formattable {
 
     @Override
     public int delete() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM contract" +
-                "\nWHERE developer_id = ? AND publisher_id = ?"
-            );
-        preparedStatement.setInt(1, developerID);
-        preparedStatement.setInt(2, publisherID);
-
         DB.modifyContracts(this, "delete");
 
-        return preparedStatement.executeUpdate();
+        return STORAGE.getContracts().delete(this);
+    }
+
+    public static int createAll(Collection<Contract> contracts) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getContracts().insertAll(contracts);
+            DB.modifyAll(contracts, "create", contract -> DB.modifyContracts(contract, "create"));
+
+            work.commit();
+            return response;
+        }
+    }
+
+    public static int deleteAll(Collection<Contract> contracts) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getContracts().deleteAll(contracts);
+            DB.modifyAll(contracts, "delete", contract -> DB.modifyContracts(contract, "delete"));
+
+            work.commit();
+            return response;
+        }
     }
 
 
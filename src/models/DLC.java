@@ -3,17 +3,18 @@ package models;
 import static misc.Constants.IO;
 import static misc.Constants.FORMAT;
 import static misc.Constants.DB;
+import static misc.Constants.STORAGE;
 import interfaces.Crud;
 import interfaces.Formattable;
+import repository.UnitOfWork;
+import storage.Schema;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 
 public final class DLC implements Crud<DLC>, Formattable {
     // Fields
@@ -21,6 +22,18 @@ public final class DLC implements Crud<DLC>, Formattable {
     private Integer baseGameID;
 
 
+    // Storage schema
+    public static final Schema<Integer, DLC> SCHEMA = new Schema<Integer, DLC>(
+        "dlc",
+        new String[] { "game_id" },
+        DLC::toRow,
+        DLC::fromRow,
+        DLC::getID,
+        key -> new Object[] { key }
+    )
+        .table("dlc", "game_id", "base_game_id");
+
+
     // Constructors
     public DLC(Integer gameID,
                Integer baseGameID) {
@@ -68,25 +81,15 @@ public final class DLC implements Crud<DLC>, Formattable {
         return DB.getGames().get(baseGameID).getName();
     }
 
+    private static DLC fromRow(Object[] row) {
+        return new DLC(
+            Schema.toInteger(row[0]),
+            Schema.toInteger(row[1])
+        );
+    }
+
     public static Map<Integer, DLC> getDLCs() throws SQLException {
-        Map<Integer, DLC> DLCs = new HashMap<>();
-
-        PreparedStatement statement = DB.getConnection().
-            prepareStatement(
-                "SELECT * FROM dlc"
-            );
-
-        ResultSet rs = statement.executeQuery();
-        while (rs.next()) {
-            DLCs.put(
-                rs.getInt("game_id"),
-                new DLC(
-                    rs.getInt("game_id"),
-                    rs.getInt("base_game_id")
-                )
-            );
-        }
-        return DLCs;
+        return STORAGE.getDLCs().loadAll();
     }
 
     public static DLC getFromInput(Integer developerID) throws SQLException {
@@ -119,39 +122,20 @@ public final class DLC implements Crud<DLC>, Formattable {
 
 
     // Crud interface
+    private Object[] toRow() {
+        return new Object[] { gameID, baseGameID };
+    }
+
     @Override
     public int create() throws SQLException {
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "INSERT INTO dlc VALUES (?, ?)"
-            );
-        statement.setInt(1, gameID);
-        statement.setInt(2, baseGameID);
-
         DB.modifyDLCs(this, "create");
 
-        return statement.executeUpdate();
+        return STORAGE.getDLCs().insert(this);
     }
 
     @Override
     public DLC read() throws SQLException {
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "SELECT *" +
-                "\nFROM dlc" +
-                "\nWHERE game_id = ? AND base_game_id = ?"
-            );
-        statement.setInt(1, gameID);
-        statement.setInt(2, baseGameID);
-
-        ResultSet rs = statement.executeQuery();
-        if (rs.next()) {
-            return new DLC(
-                rs.getInt("game_id"),
-                rs.getInt("base_game_id")
-            );
-        }
-        return null;
+        return STORAGE.getDLCs().find(gameID);
     }
 
     @Override
@@ -161,111 +145,38 @@ public final class DLC implements Crud<DLC>, Formattable {
 
     @Override 
     public int delete() throws SQLException {
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM dlc" +
-                "\nWHERE game_id = ? AND base_game_id = ?"
-            );
-        statement.setInt(1, gameID);
-        statement.setInt(2, baseGameID);
-
         DB.modifyDLCs(this, "delete");
 
-        return statement.executeUpdate();
+        return STORAGE.getDLCs().delete(this);
     }
 
+    public static int createAll(Collection<DLC> DLCs) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getDLCs().insertAll(DLCs);
+            DB.modifyAll(DLCs, "create", dlc -> DB.modifyDLCs(dlc, "create"));
 
-    // Filters
-    public static List<Game> filterDisowned(Integer userID) throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT dlc.game_id, developer_id, publisher_id, name, price, release_date, is_visible" +
-                "\nFROM game" +
-                "\nJOIN dlc ON game.game_id = dlc.game_id" +
-                "\nWHERE type = 'dlc' AND publisher_id IS NOT NULL AND is_visible = 1" + 
-                "\nAND dlc.game_id NOT IN (" +
-                "\n    SELECT game_id" +
-                "\n    FROM purchase" +
-                "\n    WHERE user_id = ?)" +
-                "\nAND base_game_id IN (" +
-                "\n    SELECT game_id" +
-                "\n    FROM purchase" +
-                "\n    WHERE user_id = ?)"
-            );
-        preparedStatement.setInt(1, userID);
-        preparedStatement.setInt(2, userID);
-
-        ResultSet rs = preparedStatement.executeQuery();
-        List<Game> games = new ArrayList<>();
-        while (rs.next()) {
-            String releaseDate = rs.getDate("release_date") == null 
-                ? null 
-                : FORMAT.dateForClass(rs.getDate("release_date").toString());
-            Double price = rs.getString("price") == null
-                ? 0.00
-                : rs.getDouble("price");
-
-            games.add(new Game(
-                rs.getInt("game_id"),
-                rs.getInt("developer_id"),
-                rs.getInt("publisher_id"),
-                rs.getString("name"),
-                price,
-                releaseDate,
-                rs.getBoolean("is_visible"),
-                "dlc"
-            ));
+            work.commit();
+            return response;
         }
-
-        return games;
     }
 
-    public static List<Game> filterNotInWishlist(Integer userID) throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT dlc.game_id, developer_id, publisher_id, name, price, release_date, is_visible" +
-                "\nFROM game" +
-                "\nJOIN dlc ON game.game_id = dlc.game_id" +
-                "\nWHERE type = 'dlc' AND is_visible = 1" + 
-                "\nAND dlc.game_id NOT IN (" +
-                "\n    SELECT game_id" +
-                "\n    FROM wishlist" +
-                "\n    WHERE user_id = ?)" +
-                "\nAND dlc.game_id NOT IN (" +
-                "\n    SELECT game_id" +
-                "\n    FROM purchase" +
-                "\n    WHERE user_id = ?)" +
-                "\nAND base_game_id IN (" +
-                "\n    SELECT game_id" +
-                "\n    FROM purchase" +
-                "\n    WHERE user_id = ?)"
-            );
-        preparedStatement.setInt(1, userID);
-        preparedStatement.setInt(2, userID);
-        preparedStatement.setInt(3, userID);
-
-        ResultSet rs = preparedStatement.executeQuery();
-        List<Game> games = new ArrayList<>();
-        while (rs.next()) {
-            String releaseDate = rs.getDate("release_date") == null 
-                ? null 
-                : FORMAT.dateForClass(rs.getDate("release_date").toString());
-            Double price = rs.getString("price") == null
-                ? 0.00
-                : rs.getDouble("price");
-
-            games.add(new Game(
-                rs.getInt("game_id"),
-                rs.getInt("developer_id"),
-                rs.getInt("publisher_id"),
-                rs.getString("name"),
-                price,
-                releaseDate,
-                rs.getBoolean("is_visible"),
-                "dlc"
-            ));
+    public static int deleteAll(Collection<DLC> DLCs) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getDLCs().deleteAll(DLCs);
+            DB.modifyAll(DLCs, "delete", dlc -> DB.modifyDLCs(dlc, "delete"));
+
+            work.commit();
+            return response;
         }
+    }
+
+
+    // Filters
+    public static List<Game> filterDisowned(Integer userID) {
+        return DB.getDisowned(userID, "dlc");
+    }
 
-        return games;
+    public static List<Game> filterNotInWishlist(Integer userID) {
+        return DB.getNotInWishlist(userID, "dlc");
     }
 }
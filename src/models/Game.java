@@ -3,21 +3,29 @@ package models;
 import static misc.Constants.IO;
 import static misc.Constants.FORMAT;
 import static misc.Constants.DB;
+import static misc.Constants.STORAGE;
+import static misc.Constants.SEARCH_RESULTS;
+import static misc.Constants.ID_BLOCK_SIZE;
 import exceptions.InvalidFieldException;
 import exceptions.UniqueFieldException;
 import interfaces.Crud;
 import interfaces.Formattable;
 import services.HelperService;
+import repository.IdAllocator;
+import repository.UnitOfWork;
+import storage.Schema;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
+import org.apache.commons.lang3.tuple.Pair;
 
 public final class Game implements Crud<Game>, Formattable {
     // Fields
@@ -26,12 +34,25 @@ public final class Game implements Crud<Game>, Formattable {
     private Integer publisherID;
     private String name;
     private Double price;
-    private String releaseDate;
+    private LocalDate releaseDate;
     private Boolean isVisible;
     private String type;
 
     // Other members
-    public static Integer nextID = 0;
+    private static final AtomicInteger nextID = new AtomicInteger();
+    private static final IdAllocator IDs = new IdAllocator("game", ID_BLOCK_SIZE, nextID);
+
+
+    // Storage schema
+    public static final Schema<Integer, Game> SCHEMA = new Schema<Integer, Game>(
+        "game",
+        new String[] { "game_id" },
+        Game::toRow,
+        Game::fromRow,
+        Game::getID,
+        key -> new Object[] { key }
+    )
+        .table("game", "game_id", "developer_id", "publisher_id", "name", "price", "release_date", "is_visible", "type");
 
 
     // Constructors
@@ -40,7 +61,7 @@ public final class Game implements Crud<Game>, Formattable {
                 Integer publisherID, 
                 String name, 
                 Double price, 
-                String releaseDate, 
+                LocalDate releaseDate, 
                 Boolean isVisible, 
                 String type) {
         this.ID = ID;
@@ -52,14 +73,14 @@ public final class Game implements Crud<Game>, Formattable {
         this.isVisible = isVisible;
         this.type = type;
 
-        nextID = Integer.max(nextID, ID);
+        nextID.accumulateAndGet(ID, Math::max);
     }
 
     public Game(Game game) {
         this.ID = game.getID();
         this.developerID = game.getDeveloperID();
         this.publisherID = game.getPublisherID();
-        this.name = game.getName();
+        this.name = game.name;
         this.price = game.getPrice();
         this.releaseDate = game.getReleaseDate();
         this.isVisible = game.getIsVisible();
@@ -73,7 +94,7 @@ public final class Game implements Crud<Game>, Formattable {
         return "Name: " + name + (type.equals("dlc") ? " DLC" : "") +
                (type == "dlc" ? " \nBase game: " + DB.getDLCs().get(ID).getBaseGameName() : "") +
                (publisherID != 0 ? " \nPrice: " + (price.equals(0.0) ? "Free" : price + " RON") : "") +
-               (publisherID != 0 ? " \nRelease date: " + releaseDate : "") +
+               (publisherID != 0 ? " \nRelease date: " + FORMAT.formatDate(releaseDate) : "") +
                " \nDeveloped by " + getDeveloperUsername() +
                (publisherID != 0 ? " \nPublished by " + getPublisherUsername() : " \nUnplublished") +
                (isVisible ? "" : " \nDelisted") + '\n';
@@ -89,8 +110,20 @@ public final class Game implements Crud<Game>, Formattable {
         return new Game(this);
     }
 
+    public Game withPublisherID(Integer publisherID) {
+        Game game = new Game(this);
+        game.publisherID = publisherID;
+        return game;
+    }
+
 
     // Getters
+    // A new ID from a block reserved in storage, never handed out twice across processes
+    // (IdAllocationException when no block can be reserved)
+    public static int allocateID() {
+        return IDs.next();
+    }
+
     public Integer getID() {
         return ID;
     }
@@ -119,11 +152,15 @@ public final class Game implements Crud<Game>, Formattable {
         return name + (type.equals("dlc") ? " DLC" : "");
     }
 
+    public String getRawName() {
+        return name;
+    }
+
     public Double getPrice() {
         return price;
     }
 
-    public String getReleaseDate() {
+    public LocalDate getReleaseDate() {
         return releaseDate;
     }
 
@@ -135,38 +172,21 @@ public final class Game implements Crud<Game>, Formattable {
         return type;
     }
 
+    private static Game fromRow(Object[] row) {
+        return new Game(
+            Schema.toInteger(row[0]),
+            Schema.toInteger(row[1]),
+            row[2] == null ? 0 : Schema.toInteger(row[2]),
+            (String)row[3],
+            row[4] == null ? 0.00 : Schema.toDouble(row[4]),
+            Schema.toDate(row[5]),
+            Schema.toBoolean(row[6]),
+            (String)row[7]
+        );
+    }
+
     public static Map<Integer, Game> getGames() throws SQLException {
-        Map<Integer, Game> games = new HashMap<>();
-
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "SELECT * FROM game"
-            );
-        ResultSet rs = statement.executeQuery();
-
-        while (rs.next()) {
-            String releaseDate = rs.getDate("release_date") == null 
-                ? null 
-                : FORMAT.dateForClass(rs.getDate("release_date").toString());
-            Double price = rs.getString("price") == null
-                ? 0.00
-                : rs.getDouble("price");
-
-            games.put(
-                rs.getInt("game_id"), 
-                new Game(
-                    rs.getInt("game_id"),
-                    rs.getInt("developer_id"),
-                    rs.getInt("publisher_id"),
-                    rs.getString("name"),
-                    price,
-                    releaseDate,
-                    rs.getBoolean("is_visible"),
-                    rs.getString("type")
-                )
-            );
-        }
-        return games;
+        return STORAGE.getGames().loadAll();
     }
 
     public static Game getFromInput(Integer developerID, String type) {
@@ -194,7 +214,7 @@ public final class Game implements Crud<Game>, Formattable {
         }
 
         return new Game(
-            Game.nextID + 1, 
+            Game.allocateID(), 
             developerID, 
             0, 
             name, 
@@ -207,134 +227,82 @@ public final class Game implements Crud<Game>, Formattable {
 
 
     // Crud interface
+    private Object[] toRow() {
+        return new Object[] {
+            ID,
+            developerID,
+            publisherID == 0 ? null : publisherID,
+            name,
+            price,
+            FORMAT.dateForDB(releaseDate),
+            isVisible,
+            type
+        };
+    }
+
     @Override
     public int create() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "INSERT INTO game VALUES (?, ?, ?, ?, ?, ?, ?, ?)"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.setInt(2, developerID);
-        if (publisherID == 0) {
-            preparedStatement.setNull(3, java.sql.Types.INTEGER);
-        } else {
-            preparedStatement.setInt(3, publisherID);
-        }
-        preparedStatement.setString(4, name);
-        preparedStatement.setDouble(5, price);
-        if (releaseDate == null) {
-            preparedStatement.setNull(6, java.sql.Types.DATE);
-        }
-        else {
-            preparedStatement.setDate(6, FORMAT.dateForDB(releaseDate));
-        }
-        preparedStatement.setBoolean(7, isVisible);
-        preparedStatement.setString(8, type);
-
         DB.modifyGames(this, "create");
 
-        return preparedStatement.executeUpdate();
+        return STORAGE.getGames().insert(this);
     }
 
     @Override 
     public Game read() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT * " +
-                "\nFROM game" + 
-                "\nWHERE game_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-
-        ResultSet rs = preparedStatement.executeQuery();
-        if (rs.next()) {
-            String releaseDate = rs.getDate("release_date") == null 
-                ? null 
-                : FORMAT.dateForClass(rs.getDate("release_date").toString());
-            Double price = rs.getString("price") == null
-                ? 0.00
-                : rs.getDouble("price");
-
-            return new Game(
-                rs.getInt("game_id"),
-                rs.getInt("developer_id"),
-                rs.getInt("publisher_id"),
-                rs.getString("name"),
-                price,
-                releaseDate,
-                rs.getBoolean("is_visible"),
-                rs.getString("type")
-            );
-        }
-
-        return null;
+        return STORAGE.getGames().find(ID);
     }
 
     @Override
     public int update(String column, String value, String type) throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "UPDATE game" +
-                "\nSET " + column + " = ?" +
-                "\nWHERE game_id = ?"
-            );
-
-        if (type.equals("date")) {
-            preparedStatement.setDate(1, FORMAT.dateForDB(value));
-        } 
-        else if (type.equals("boolean")) {
-            preparedStatement.setBoolean(1, Boolean.parseBoolean(value));
-        }
-        else if (type.equals("double")) {
-            preparedStatement.setDouble(1, Double.parseDouble(value));
-        }
-        else {
-            preparedStatement.setString(1, value);
-        }
-        preparedStatement.setInt(2, ID);
-
-        int response = preparedStatement.executeUpdate();
+        int response = STORAGE.getGames().update(ID, column, FORMAT.valueForDB(value, type));
 
         DB.modifyGames(this.read(), "update");
 
         return response;
     }
 
+    public int publish(Integer publisherID, String price, LocalDate releaseDate) throws SQLException {
+        Game published = new Game(ID, developerID, publisherID, name, Double.parseDouble(price), releaseDate, isVisible, type);
+
+        int response = STORAGE.getGames().update(published);
+
+        DB.modifyGames(published, "update");
+
+        return response;
+    }
+
     @Override
     public int delete() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM purchase" +
-                "\nWHERE game_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.executeUpdate();
-
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM wishlist" +
-                "\nWHERE game_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.executeUpdate();
-
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM dlc" +
-                "\nWHERE game_id = ? OR base_game_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.setInt(2, ID);
-        preparedStatement.executeUpdate();
-
-        preparedStatement = DB.getConnection()
-            .prepareStatement("DELETE FROM game"
-                              + "\nWHERE game_id = ?");
-        preparedStatement.setInt(1, ID);
-
-        DB.modifyGames(this.read(), "delete");
-
-        return preparedStatement.executeUpdate();
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            Game game = this.read();
+
+            DB.modifyGames(game, "delete");
+
+            int response = STORAGE.getGames().delete(game);
+
+            work.commit();
+            return response;
+        }
+    }
+
+    public static int createAll(Collection<Game> games) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getGames().insertAll(games);
+            DB.modifyAll(games, "create", game -> DB.modifyGames(game, "create"));
+
+            work.commit();
+            return response;
+        }
+    }
+
+    public static int deleteAll(Collection<Game> games) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getGames().deleteAll(games);
+            DB.modifyAll(games, "delete", game -> DB.modifyGames(game, "delete"));
+
+            work.commit();
+            return response;
+        }
     }
 
 
@@ -376,154 +344,34 @@ public final class Game implements Crud<Game>, Formattable {
         return HelperService.filterByCondition(games, condition);
     }
 
-    public static List<Game> filterContractedUnpublished(Integer publisherID) throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT game_id, game.developer_id, name, price, release_date, is_visible, type" +
-                "\nFROM game" +
-                "\nJOIN provider ON game.developer_id = provider.user_id" + 
-                "\nJOIN contract ON contract.developer_id = provider.user_id" +
-                "\nWHERE game.publisher_id IS NULL AND contract.publisher_id = ?"
-            );
-        preparedStatement.setInt(1, publisherID);
-
-        ResultSet rs = preparedStatement.executeQuery();
-        List<Game> games = new ArrayList<>();
-        while (rs.next()) {
-            String releaseDate = rs.getDate("release_date") == null 
-                ? null 
-                : FORMAT.dateForClass(rs.getDate("release_date").toString());
-            Double price = rs.getString("price") == null
-                ? 0.00
-                : rs.getDouble("price");
-
-            games.add(new Game(
-                rs.getInt("game_id"),
-                rs.getInt("developer_id"),
-                0,
-                rs.getString("name"),
-                price,
-                releaseDate,
-                rs.getBoolean("is_visible"),
-                rs.getString("type")
-            ));
-        }
-
-        return games;
-    }
-
-    public static List<Game> filterDisowned(Integer userID) throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT *" +
-                "\nFROM game" +
-                "\nWHERE type = 'game' AND publisher_id IS NOT NULL AND is_visible = 1 AND game_id NOT IN (" + 
-                "\n    SELECT game_id" +
-                "\n    FROM purchase" +
-                "\n    WHERE user_id = ?)"
-            );
-        preparedStatement.setInt(1, userID);
-
-        ResultSet rs = preparedStatement.executeQuery();
-        List<Game> games = new ArrayList<>();
-        while (rs.next()) {
-            String releaseDate = rs.getDate("release_date") == null 
-                ? null 
-                : FORMAT.dateForClass(rs.getDate("release_date").toString());
-            Double price = rs.getString("price") == null
-                ? 0.00
-                : rs.getDouble("price");
-
-            games.add(new Game(
-                rs.getInt("game_id"),
-                rs.getInt("developer_id"),
-                rs.getInt("publisher_id"),
-                rs.getString("name"),
-                price,
-                releaseDate,
-                rs.getBoolean("is_visible"),
-                rs.getString("type")
-            ));
-        }
-
-        return games;
-    }
-
-    public static List<Game> filterNotInWishlist(Integer userID) throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT *" +
-                "\nFROM game" +
-                "\nWHERE type = 'game' AND is_visible = 1 AND game_id NOT IN (" + 
-                "\n    SELECT game_id" +
-                "\n    FROM wishlist" +
-                "\n    WHERE user_id = ?)" +
-                "\n AND game_id NOT IN (" +
-                "\n    SELECT game_id" +
-                "\n    FROM purchase" +
-                "\n    WHERE user_id = ?)"
-            );
-        preparedStatement.setInt(1, userID);
-        preparedStatement.setInt(2, userID);
-
-        ResultSet rs = preparedStatement.executeQuery();
-        List<Game> games = new ArrayList<>();
-        while (rs.next()) {
-            String releaseDate = rs.getDate("release_date") == null 
-                ? null 
-                : FORMAT.dateForClass(rs.getDate("release_date").toString());
-            Double price = rs.getString("price") == null
-                ? 0.00
-                : rs.getDouble("price");
-
-            games.add(new Game(
-                rs.getInt("game_id"),
-                rs.getInt("developer_id"),
-                rs.getInt("publisher_id"),
-                rs.getString("name"),
-                price,
-                releaseDate,
-                rs.getBoolean("is_visible"),
-                rs.getString("type")
-            ));
-        }
-
-        return games;
+    public static List<Game> filterContractedUnpublished(Integer publisherID) {
+        Map<Pair<Integer, Integer>, Contract> contracts = DB.getContracts();
+        Predicate<Game> condition = game ->
+            !game.getPublished() && contracts.containsKey(Pair.of(game.getDeveloperID(), publisherID));
+        return HelperService.filterByCondition(new ArrayList<>(DB.getGames().values()), condition);
     }
 
-
-    // Sorters
-    private static List<Game> sortByName(List<Game> games) {
-        return HelperService.sortByCriteria(
-            games, 
-            (game1, game2) -> game1.getName().compareTo(game2.getName())
-        );
+    public static List<Game> filterDisowned(Integer userID) {
+        return DB.getDisowned(userID, "game");
     }
 
-    private static List<Game> sortByPrice(List<Game> games) {
-        return HelperService.sortByCriteria(
-            games, 
-            (game1, game2) -> game1.getPrice().compareTo(game2.getPrice())
-        );
+    public static List<Game> filterNotInWishlist(Integer userID) {
+        return DB.getNotInWishlist(userID, "game");
     }
 
-    private static List<Game> sortByReleaseDate(List<Game> games) {
-        return HelperService.sortByCriteria(
-            games, 
-            (game1, game2) -> game1.getReleaseDate().compareTo(game2.getReleaseDate())
-        );
+
+    // Search (ranked by relevance)
+    public static List<Game> searchByName(List<Game> games, String query) {
+        Set<Integer> IDs = new HashSet<>();
+        for (Game game : games) {
+            IDs.add(game.getID());
+        }
+        return DB.searchGames(query, SEARCH_RESULTS, game -> IDs.contains(game.getID()));
     }
 
+
+    // Sorters
     public static List<Game> sortByCriteria(List<Game> games, String criteria) {
-        switch (criteria) {
-            case "Name":
-                return sortByName(games);
-            case "Price":
-                return sortByPrice(games);
-            case "Release date":
-                return sortByReleaseDate(games);
-            default:
-                return games;
-        }
+        return DB.orderByGame(games, Game::getID, criteria);
     }
 }
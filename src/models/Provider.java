@@ -2,12 +2,11 @@ package models;
 
 import static misc.Constants.MIN_PASSWORD_LENGTH;
 import static misc.Constants.EMAIL_REGEX;
-import static misc.Constants.DATE_REGEX;
 import static misc.Constants.WEBSITE_REGEX;
 import static misc.Constants.IO;
 import static misc.Constants.FORMAT;
 import static misc.Constants.DB;
-import static misc.Constants.DATE;
+import static misc.Constants.STORAGE;
 import exceptions.InvalidFieldException;
 import exceptions.UniqueFieldException;
 import misc.Enums.ProviderMenu;
@@ -20,20 +19,21 @@ import misc.Enums.DeveloperGames;
 import interfaces.Crud;
 import interfaces.ProfileEdit;
 import interfaces.ProfileMenu;
+import interfaces.Screen;
 import services.HelperService;
+import services.Session;
+import repository.UnitOfWork;
+import storage.Schema;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.Collection;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.function.Predicate;
-import org.apache.commons.lang3.tuple.Pair;
 
 public final class Provider extends User implements Crud<Provider>, ProfileEdit, ProfileMenu {
     // Fields
@@ -41,6 +41,19 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
     private String typeProvider;
 
 
+    // Storage schema
+    public static final Schema<Integer, Provider> SCHEMA = new Schema<Integer, Provider>(
+        "provider",
+        new String[] { "user_id" },
+        Provider::toRow,
+        Provider::fromRow,
+        Provider::getID,
+        key -> new Object[] { key }
+    )
+        .table("user", USER_COLUMNS)
+        .table("provider", "user_id", "website", "type_provider");
+
+
     // Other members
     private final String[] filters = {
         "game", 
@@ -51,8 +64,6 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
         "Price", 
         "Release date"
     };
-    private Integer filterIndex = 0;
-    private Integer sortIndex = 0;
 
 
     // Constructors
@@ -92,33 +103,21 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
         return typeProvider;
     }
 
-    public static Map<Integer, Provider> getProviders() throws SQLException {
-        Map<Integer, Provider> providers = new HashMap<>();
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT provider.user_id, username, password, email, is_banned, type, website, type_provider" +
-                "\nFROM user" +
-                "\nJOIN provider ON user.user_id = provider.user_id"
-            );
-
-        ResultSet rs = preparedStatement.executeQuery();
-        while (rs.next()) {
-            providers.put(
-                rs.getInt("user_id"),
-                new Provider(
-                    rs.getInt("user_id"),
-                    rs.getString("username"),
-                    rs.getString("password"),
-                    rs.getString("email"),
-                    rs.getBoolean("is_banned"),
-                    rs.getString("type"),
-                    rs.getString("website"),
-                    rs.getString("type_provider")
-                )
-            );
-        }
+    private static Provider fromRow(Object[] row) {
+        return new Provider(
+            Schema.toInteger(row[0]),
+            (String)row[1],
+            (String)row[2],
+            (String)row[3],
+            Schema.toBoolean(row[4]),
+            (String)row[5],
+            (String)row[6],
+            (String)row[7]
+        );
+    }
 
-        return providers;
+    public static Map<Integer, Provider> getProviders() throws SQLException {
+        return STORAGE.getProviders().loadAll();
     }
 
     public static Provider getFromInput(String typeProvider) {
@@ -128,11 +127,8 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
             if (value.isEmpty()) {
                 throw new InvalidFieldException("The username must not be empty!");
             }
-            Map<Integer, User> users = DB.getUsers();
-            for (User user : users.values()) {
-                if (user.getUsername().toLowerCase().equals(value.toLowerCase())) {
-                    throw new UniqueFieldException("The username " + value + " is already taken!");
-                }
+            if (DB.getUserByUsername(value) != null) {
+                throw new UniqueFieldException("The username " + value + " is already taken!");
             }
             return true;
         };
@@ -185,7 +181,7 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
         }
 
         return new Provider(
-            User.nextID + 1, 
+            User.allocateID(), 
             username, 
             password, 
             email.isEmpty() ? null : email, 
@@ -196,93 +192,30 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
     }
 
     // Crud interface
+    private Object[] toRow() {
+        return toUserRow(website, typeProvider);
+    }
+
     @Override
     public int create() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement("INSERT INTO user VALUES (?, ?, ?, ?, ?, ?)");
-        preparedStatement.setInt(1, ID);
-        preparedStatement.setString(2, username);
-        preparedStatement.setString(3, password);
-        preparedStatement.setString(4, email);
-        preparedStatement.setBoolean(5, isBanned);
-        preparedStatement.setString(6, type);
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            DB.modifyProviders(this, "create");
 
-        preparedStatement.executeUpdate();
+            int response = STORAGE.getProviders().insert(this);
 
-        preparedStatement = DB.getConnection()
-            .prepareStatement("INSERT INTO provider VALUES (?, ?, ?)");
-        preparedStatement.setInt(1, ID);
-        preparedStatement.setString(2, website);
-        preparedStatement.setString(3, typeProvider);
-
-        
-        DB.modifyProviders(this, "create");
-
-        return preparedStatement.executeUpdate();
+            work.commit();
+            return response;
+        }
     }
 
     @Override
     public Provider read() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT provider.user_id, username, password, email, is_banned, type, website, type_provider" +
-                "\nFROM user" +
-                "\nJOIN provider ON user.user_id = provider.user_id" +
-                "\nWHERE provider.user_id = ?"
-            );
-
-        preparedStatement.setInt(1, ID);
-        ResultSet rs = preparedStatement.executeQuery();
-        if (rs.next()) {
-            return new Provider(
-                rs.getInt("user_id"),
-                rs.getString("username"),
-                rs.getString("password"),
-                rs.getString("email"),
-                rs.getBoolean("is_banned"),
-                rs.getString("type"),
-                rs.getString("website"),
-                rs.getString("type_provider")
-            );
-        }
-        return null;
+        return STORAGE.getProviders().find(ID);
     }
 
     @Override
     public int update(String column, String value, String type) throws SQLException {
-        PreparedStatement preparedStatement;
-
-        if (column.equals("website") || column.equals("type_provider")) {
-            preparedStatement = DB.getConnection()
-                .prepareStatement(
-                    "UPDATE provider" +
-                    "\nSET " + column + " = ?" +
-                    "\nWHERE user_id = ?");
-        }
-        else {
-            preparedStatement = DB.getConnection()
-                .prepareStatement(
-                    "UPDATE user" +
-                    "\nSET " + column + " = ?" +
-                    "\nWHERE user_id = ?"
-                );
-        }
-
-        if (type.equals("double")) {
-            preparedStatement.setDouble(1, Double.parseDouble(value));
-        }
-        else if (type.equals("int")) {
-            preparedStatement.setInt(1, Integer.parseInt(value));
-        }
-        else if (type.equals("boolean")) {
-            preparedStatement.setBoolean(1, Boolean.parseBoolean(value));
-        }
-        else {
-            preparedStatement.setString(1, value);
-        }
-        preparedStatement.setInt(2, ID);
-        
-        int response = preparedStatement.executeUpdate();
+        int response = STORAGE.getProviders().update(ID, column, FORMAT.valueForDB(value, type));
 
         DB.modifyProviders(this.read(), "update");
 
@@ -291,59 +224,34 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
 
     @Override
     public int delete() throws SQLException {
-        PreparedStatement preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM contract" +
-                "\nWHERE developer_id = ? OR publisher_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.setInt(2, ID);
-        preparedStatement.executeUpdate();
-
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM game" +
-                "\nWHERE developer_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.executeUpdate();
-
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "SELECT game_id, developer_id" +
-                "\nFROM game" +
-                "\nWHERE publisher_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        ResultSet rs = preparedStatement.executeQuery();
-        while (rs.next()) {
-            preparedStatement = DB.getConnection()
-                .prepareStatement(
-                    "UPDATE game" +
-                    "\nSET publisher_id = ?" +
-                    "\nWHERE game_id = ?");
-            preparedStatement.setInt(1, rs.getInt("developer_id"));
-            preparedStatement.setInt(2, rs.getInt("game_id"));
-            preparedStatement.executeUpdate();
-        }
-
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM provider" +
-                "\nWHERE user_id = ?"
-            );
-        preparedStatement.setInt(1, ID);
-        preparedStatement.executeUpdate();
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            DB.modifyProviders(this, "delete");
 
-        preparedStatement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM user" +
-                "\nWHERE user_id = ?");
-        preparedStatement.setInt(1, ID);
+            int response = STORAGE.getProviders().delete(this);
 
-        DB.modifyProviders(this, "delete");
+            work.commit();
+            return response;
+        }
+    }
+
+    public static int createAll(Collection<Provider> providers) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getProviders().insertAll(providers);
+            DB.modifyAll(providers, "create", provider -> DB.modifyProviders(provider, "create"));
 
-        return preparedStatement.executeUpdate();
+            work.commit();
+            return response;
+        }
+    }
+
+    public static int deleteAll(Collection<Provider> providers) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getProviders().deleteAll(providers);
+            DB.modifyAll(providers, "delete", provider -> DB.modifyProviders(provider, "delete"));
+
+            work.commit();
+            return response;
+        }
     }
 
 
@@ -378,15 +286,32 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
 
 
     // Menu Helpers
+    // Filter and sorting choices are kept in the session, as the same account can be open in several
     private void resetMenu() {
-        filterIndex = 0;
-        sortIndex = 0;
+        Session.current().setFilterIndex(0);
+        Session.current().setSortIndex(0);
+    }
+
+    private String filter() {
+        return filters[Session.current().getFilterIndex() % filters.length];
+    }
+
+    private void nextFilter() {
+        Session.current().setFilterIndex((Session.current().getFilterIndex() + 1) % filters.length);
+    }
+
+    private String sortOption() {
+        return sortOptions[Session.current().getSortIndex() % sortOptions.length];
+    }
+
+    private void nextSortOption() {
+        Session.current().setSortIndex((Session.current().getSortIndex() + 1) % sortOptions.length);
     }
 
     private void publishGame(List<Game> games) throws SQLException {
         Game game = IO.selectFromOptions(
             games,
-            "No " + filters[filterIndex] + "s to show!"
+            "No " + filter() + "s to show!"
         );
         if (game == null) {
             return;
@@ -417,14 +342,12 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
             return;
         }
 
-        game.update("publisher_id", this.getID().toString(), "int");
-        game.update("price", price, "double");
-        game.update("release_date", DATE.format(new Date()), "date");
+        game.publish(this.getID(), price, LocalDate.now());
     }
 
     private void editGame(List<Game> games) throws SQLException {
         if (games.isEmpty()) {
-            System.out.println("No " + filters[filterIndex] + "s to show!");
+            System.out.println("No " + filter() + "s to show!");
             IO.pressAnyKeyToContinue();
             return;
         }
@@ -434,19 +357,19 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
             "Edit price\n",
             "Go back\n",
         };
-        GamesEdit option = GamesEdit.values()[IO.getValidInput(options)];
+        GamesEdit option;
+        Game game;
+        do {
+            option = GamesEdit.values()[IO.getValidInput(options)];
 
-        if (option == GamesEdit.GO_BACK) {
-            return;
-        }
-        Game game = IO.selectFromOptions(
-            games, 
-            "No "+ filters[filterIndex] + "s to show!"
-        );
-        if (game == null) {
-            editGame(games);
-            return;
-        }
+            if (option == GamesEdit.GO_BACK) {
+                return;
+            }
+            game = IO.selectFromOptions(
+                games, 
+                "No "+ filter() + "s to show!"
+            );
+        } while (game == null);
 
         IO.printLogo();
         System.out.println("< Game >");
@@ -478,7 +401,7 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
     private void listGame(List<Game> games, boolean delist) throws SQLException {
         Game game = IO.selectFromOptions(
             Game.filterByVisibility(games, delist), 
-            "No " + (delist ? "de" : "") + "listed " + filters[filterIndex] + "s to show!"
+            "No " + (delist ? "de" : "") + "listed " + filter() + "s to show!"
         );
         if (game == null) {
             return;
@@ -490,7 +413,7 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
     private void removeGame(List<Game> games) throws SQLException {
         Game game = IO.selectFromOptions(
             games, 
-            "No " + filters[filterIndex] + "s to show!"
+            "No " + filter() + "s to show!"
         );
         if (game == null) {
             return;
@@ -522,22 +445,26 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
         IO.printLogo();
         System.out.println("< Contract >");
         System.out.println("Developer: " + contract.getDeveloperUsername());
-        System.out.println("Start date: " + contract.getStartDate());
-        System.out.println("End date: " + contract.getEndDate() + '\n');
-        String defaultEndDate = FORMAT.addOneYear(contract.getStartDate());
+        System.out.println("Start date: " + FORMAT.formatDate(contract.getStartDate()));
+        System.out.println("End date: " + FORMAT.formatDate(contract.getEndDate()) + '\n');
+        String defaultEndDate = FORMAT.formatDate(FORMAT.addOneYear(contract.getStartDate()));
         String newEndDate = IO.getUserInput("New end date (default " + defaultEndDate + "): ");
 
         if (newEndDate.isEmpty()) {
             newEndDate = defaultEndDate;
         }
 
-        if (newEndDate.compareTo(contract.getStartDate()) < 0) {
-            IO.pauseOutput("End date must be after the start date");
+        LocalDate endDate;
+        try {
+            endDate = FORMAT.parseInputDate(newEndDate);
+        }
+        catch (InvalidFieldException e) {
+            IO.pauseOutput(e.getMessage());
             return;
         }
 
-        if (!newEndDate.matches(DATE_REGEX)) {
-            System.out.println("Invalid date format.");
+        if (endDate.isBefore(contract.getStartDate())) {
+            IO.pauseOutput("End date must be after the start date");
             return;
         }
 
@@ -571,34 +498,32 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
 
 
     // Menus
-    private void gamesMenuPublisher() throws SQLException {
+    private Screen gamesMenuPublisher() throws SQLException {
         String[] options = {
             "Show all\n", 
-            "Show published " + filters[filterIndex] + "s\n", 
-            "Show unpublished " + filters[filterIndex] + "s\n", 
-            "Publish a " + filters[filterIndex] + '\n', 
-            "Edit a " + filters[filterIndex] + '\n', 
-            "Delist a " + filters[filterIndex] + '\n', 
-            "Relist a " + filters[filterIndex] + '\n', 
-            "Remove a " + filters[filterIndex] + '\n', 
+            "Show published " + filter() + "s\n", 
+            "Show unpublished " + filter() + "s\n", 
+            "Publish a " + filter() + '\n', 
+            "Edit a " + filter() + '\n', 
+            "Delist a " + filter() + '\n', 
+            "Relist a " + filter() + '\n', 
+            "Remove a " + filter() + '\n', 
             "Change filter\n",
-            "Change sorting criteria (" + sortOptions[sortIndex] + ")\n",
+            "Change sorting criteria (" + sortOption() + ")\n",
             "Go back\n"
         };
         PublisherGames option = PublisherGames.values()[IO.getValidInput(options)];
 
         if (option == PublisherGames.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
         if (option == PublisherGames.CHANGE_FILTER) {
-            filterIndex = (filterIndex + 1) % filters.length;
-            gamesMenuPublisher();
-            return;
+            nextFilter();
+            return Screen.STAY;
         }
         if (option == PublisherGames.CHANGE_SORT) {
-            sortIndex = (sortIndex + 1) % sortOptions.length;
-            gamesMenuPublisher();
-            return;
+            nextSortOption();
+            return Screen.STAY;
         }
 
         IO.printLogo();
@@ -606,7 +531,7 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
             new ArrayList<>(DB.getGames().values()), 
             this.getID()
         );
-        games = Game.sortByCriteria(games, sortOptions[sortIndex]);
+        games = Game.sortByCriteria(games, sortOption());
 
         if (option == PublisherGames.SHOW_ALL) {
             games.addAll(Game.filterContractedUnpublished(this.getID()));
@@ -614,31 +539,30 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
                 games, 
                 "No games to show!"
             );
-            gamesMenuPublisher();
-            return;
+            return Screen.STAY;
         }
 
-        games = Game.filterByType(games, filters[filterIndex]);
+        games = Game.filterByType(games, filter());
         if (option == PublisherGames.SHOW_PUBLISHED) {
             IO.printItems(
                 games, 
-                "No " + filters[filterIndex] + "s to show!"
+                "No " + filter() + "s to show!"
             );
         }
         else if (option == PublisherGames.SHOW_UNPUBLISHED) {
             IO.printItems(
                 Game.filterByType(
                     Game.filterContractedUnpublished(this.getID()),
-                    filters[filterIndex]
+                    filter()
                 ),
-                "No " + filters[filterIndex] + "s to show!"
+                "No " + filter() + "s to show!"
             );
         }
         else if (option == PublisherGames.PUBLISH) {
             publishGame(
                 Game.filterByType(
                     Game.filterContractedUnpublished(this.getID()), 
-                    filters[filterIndex]
+                    filter()
                 )
             );
         }
@@ -655,83 +579,78 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
             removeGame(games);
         }
 
-        gamesMenuPublisher();
+        return Screen.STAY;
     }
 
-    private void gamesMenuDeveloper() throws SQLException {
+    private Screen gamesMenuDeveloper() throws SQLException {
         String[] options = {
             "Show all\n", 
-            "Show published " + filters[filterIndex] + "s\n", 
-            "Show unpublished " + filters[filterIndex] + "s\n", 
-            "Develop a " + filters[filterIndex] + '\n', 
-            "Publish a " + filters[filterIndex] + '\n', 
-            "Edit a " + filters[filterIndex] + '\n', 
-            "Delist a " + filters[filterIndex] + '\n', 
-            "Relist a " + filters[filterIndex] + '\n', 
-            "Remove a " + filters[filterIndex] + '\n', 
+            "Show published " + filter() + "s\n", 
+            "Show unpublished " + filter() + "s\n", 
+            "Develop a " + filter() + '\n', 
+            "Publish a " + filter() + '\n', 
+            "Edit a " + filter() + '\n', 
+            "Delist a " + filter() + '\n', 
+            "Relist a " + filter() + '\n', 
+            "Remove a " + filter() + '\n', 
             "Change filter\n",
-            "Change sorting criteria (" + sortOptions[sortIndex] + ")\n",
+            "Change sorting criteria (" + sortOption() + ")\n",
             "Go back\n"
         };
         DeveloperGames option = DeveloperGames.values()[IO.getValidInput(options)];
 
         if (option == DeveloperGames.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
         if (option == DeveloperGames.CHANGE_FILTER) {
-            filterIndex = (filterIndex + 1) % filters.length;
-            gamesMenuDeveloper();
-            return;
+            nextFilter();
+            return Screen.STAY;
         }
         if (option == DeveloperGames.CHANGE_SORT) {
-            sortIndex = (sortIndex + 1) % sortOptions.length;
-            gamesMenuDeveloper();
-            return;
+            nextSortOption();
+            return Screen.STAY;
         }
 
         IO.printLogo();
         List<Game> games = new ArrayList<>(DB.getGames().values());
-        games = Game.sortByCriteria(games, sortOptions[sortIndex]);
+        games = Game.sortByCriteria(games, sortOption());
 
         if (option == DeveloperGames.SHOW_ALL) {
             IO.printItems(
                 Game.filterDeveloperAll(games, this.getID()), 
-                "No " + filters[filterIndex] + "s to show!"
+                "No " + filter() + "s to show!"
             );
-            gamesMenuDeveloper();
-            return;
+            return Screen.STAY;
         }
 
-        games = Game.filterByType(games, filters[filterIndex]);
+        games = Game.filterByType(games, filter());
         if (option == DeveloperGames.SHOW_PUBLISHED) {
             IO.printItems(
                 Game.filterDeveloperPublished(games, this.getID()), 
-                "No " + filters[filterIndex] + "s to show!"
+                "No " + filter() + "s to show!"
             );
         }
         else if (option == DeveloperGames.SHOW_UNPUBLISHED) {
             IO.printItems(
                 Game.filterByType(
                     Game.filterDeveloperUnpublished(games, this.getID()), 
-                    filters[filterIndex]
+                    filter()
                 ),
-                "No " + filters[filterIndex] + "s to show!"
+                "No " + filter() + "s to show!"
             );
         }
         else if (option == DeveloperGames.DEVELOP) {
-            if (filters[filterIndex].equals("game")) {
+            if (filter().equals("game")) {
                 Game game = Game.getFromInput(this.getID(), "game");
                 if (game == null) {
-                    gamesMenuDeveloper();
-                    return;
+                    return Screen.STAY;
                 }
                 game.create();
             }
             else {
                 DLC dlc = DLC.getFromInput(this.getID());
                 if (dlc == null) {
-                    gamesMenuDeveloper();
-                    return;
+                    return Screen.STAY;
                 }
                 dlc.create();
             }
@@ -743,7 +662,7 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
                         games, 
                         this.getID()
                     ),
-                    filters[filterIndex]
+                    filter()
                 )
             );
         }
@@ -760,24 +679,17 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
             removeGame(Game.filterDeveloperPrivileged(games, this.getID()));
         }
 
-        gamesMenuDeveloper();
+        return Screen.STAY;
     }
 
-    private void gamesMenu() {
-        try {
-            if (this.typeProvider.equals("publisher")) {
-                gamesMenuPublisher();
-            }
-            else {
-                gamesMenuDeveloper();
-            }
-        }
-        catch (SQLException e) {
-            e.printStackTrace();
+    private Screen gamesMenu() {
+        if (this.typeProvider.equals("publisher")) {
+            return this::gamesMenuPublisher;
         }
+        return this::gamesMenuDeveloper;
     }
 
-    private void contractsMenuPublisher() throws SQLException {
+    private Screen contractsMenuPublisher() throws SQLException {
         String[] options = {
             "Show all\n", 
             "Issue to developer\n", 
@@ -789,7 +701,7 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
         PublisherContracts option = PublisherContracts.values()[IO.getValidInput(options)];
 
         if (option == PublisherContracts.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
 
         IO.printLogo();
@@ -804,8 +716,7 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
         {
             Contract contract = Contract.getFromInput(this.getID());
             if (contract == null) {
-                contractsMenuPublisher();
-                return;
+                return Screen.STAY;
             }
             contract.create();
         }
@@ -819,10 +730,10 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
             nullifyContract(Contract.filterByStatus(contracts, "accepted"));
         }
 
-        contractsMenuPublisher();
+        return Screen.STAY;
     }
 
-    private void contractsMenuDeveloper() throws SQLException {
+    private Screen contractsMenuDeveloper() throws SQLException {
         String[] options = {
             "Show all\n", 
             "Accept pending\n", 
@@ -832,7 +743,7 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
         DeveloperContracts option = DeveloperContracts.values()[IO.getValidInput(options)];
 
         if (option == DeveloperContracts.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
 
         IO.printLogo();
@@ -850,24 +761,17 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
             cancelContract(Contract.filterByStatus(contracts, "pending"));
         }
 
-        contractsMenuDeveloper();
+        return Screen.STAY;
     }
 
-    private void contractsMenu() {
-        try {
-            if (this.typeProvider.equals("publisher")) {
-                contractsMenuPublisher();
-            }
-            else {
-                contractsMenuDeveloper();
-            }
-        }
-        catch (SQLException e) {
-            e.printStackTrace();
+    private Screen contractsMenu() {
+        if (this.typeProvider.equals("publisher")) {
+            return this::contractsMenuPublisher;
         }
+        return this::contractsMenuDeveloper;
     }
 
-    private void editMenu() throws SQLException {
+    private Screen editMenu() throws SQLException {
         String[] options = {
             "Edit username\n", 
             "Edit password\n", 
@@ -878,8 +782,7 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
         ProviderEdit option = ProviderEdit.values()[IO.getValidInput(options)];
 
         if (option == ProviderEdit.GO_BACK) {
-            profileMenu(this::editMenu);
-            return;
+            return Screen.BACK;
         }
         if (option == ProviderEdit.EDIT_USERNAME) {
             editUsername();
@@ -894,11 +797,11 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
             editWebsite();
         }
 
-        editMenu();
+        return Screen.STAY;
     }
 
     @Override
-    public void menu() throws SQLException {
+    public Screen menu() throws SQLException {
         String[] options = {
             "Manage games\n", 
             "Contracts\n", 
@@ -908,22 +811,22 @@ public final class Provider extends User implements Crud<Provider>, ProfileEdit,
         ProviderMenu option = ProviderMenu.values()[IO.getValidInput(options)];
 
         if (option == ProviderMenu.LOG_OUT) {
-            return;
+            return Screen.BACK;
         }
 
         IO.printLogo();
         resetMenu();
 
         if (option == ProviderMenu.MANAGE_GAMES) {
-            gamesMenu();
+            return gamesMenu();
         }
         else if (option == ProviderMenu.CONTRACTS) {
-            contractsMenu();
+            return contractsMenu();
         }
         else if (option == ProviderMenu.PROFILE) {
-            profileMenu(this::editMenu);
+            return () -> profileMenu(this::editMenu);
         }
 
-        menu();
+        return Screen.STAY;
     }
 }
@@ -4,19 +4,21 @@ import static misc.Constants.AUDIT;
 import static misc.Constants.IO;
 import static misc.Constants.FORMAT;
 import static misc.Constants.DB;
-import static misc.Constants.DATE;
+import static misc.Constants.STORAGE;
 import interfaces.Crud;
 import interfaces.Formattable;
+import repository.UnitOfWork;
 import services.HelperService;
+import storage.Schema;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Predicate;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -24,14 +26,26 @@ public final class Purchase implements Crud<Purchase>, Formattable {
     // Fields
     private Integer gameID;
     private Integer userID;
-    private String purchaseDate;
+    private LocalDate purchaseDate;
     private Double price;
 
 
+    // Storage schema
+    public static final Schema<Pair<Integer, Integer>, Purchase> SCHEMA = new Schema<Pair<Integer, Integer>, Purchase>(
+        "purchase",
+        new String[] { "game_id", "user_id" },
+        Purchase::toRow,
+        Purchase::fromRow,
+        Purchase::getID,
+        key -> new Object[] { key.getLeft(), key.getRight() }
+    )
+        .table("purchase", "game_id", "user_id", "purchase_date", "price");
+
+
     // Constructors
     public Purchase(Integer gameID,
                     Integer userID,
-                    String purchaseDate,
+                    LocalDate purchaseDate,
                     Double price) {
         this.gameID = gameID;
         this.userID = userID;
@@ -51,7 +65,7 @@ public final class Purchase implements Crud<Purchase>, Formattable {
     @Override
     public String toString() {
         return "Game: " + getGameName() +
-               " \nPurchase date: " + purchaseDate +
+               " \nPurchase date: " + FORMAT.formatDate(purchaseDate) +
                " \nPrice: " + (price.equals(0.0) ? "Free" : price + " RON") + '\n';
     }
 
@@ -83,7 +97,7 @@ public final class Purchase implements Crud<Purchase>, Formattable {
         return DB.getGames().get(gameID).getPrice().toString();
     }
 
-    public String getGameReleaseDate() {
+    public LocalDate getGameReleaseDate() {
         return DB.getGames().get(gameID).getReleaseDate();
     }
 
@@ -95,7 +109,7 @@ public final class Purchase implements Crud<Purchase>, Formattable {
         return DB.getUsers().get(userID).getUsername();
     }
 
-    public String getPurchaseDate() {
+    public LocalDate getPurchaseDate() {
         return purchaseDate;
     }
 
@@ -103,67 +117,35 @@ public final class Purchase implements Crud<Purchase>, Formattable {
         return price;
     }
 
+    private static Purchase fromRow(Object[] row) {
+        return new Purchase(
+            Schema.toInteger(row[0]),
+            Schema.toInteger(row[1]),
+            Schema.toDate(row[2]),
+            Schema.toDouble(row[3])
+        );
+    }
+
     public static Map<Pair<Integer, Integer>, Purchase> getPurchases() throws SQLException {
-        Map<Pair<Integer, Integer>, Purchase> purchases = new HashMap<>();
-
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "SELECT * FROM purchase"
-            );
-
-        ResultSet rs = statement.executeQuery();
-        while (rs.next()) {
-            purchases.put(
-                Pair.of(rs.getInt("game_id"), rs.getInt("user_id")),
-                new Purchase(
-                    rs.getInt("game_id"),
-                    rs.getInt("user_id"),
-                    FORMAT.dateForClass(rs.getDate("purchase_date").toString()),
-                    rs.getDouble("price")
-                )
-            );
-        }
-        return purchases;
+        return STORAGE.getPurchases().loadAll();
     }
 
 
     // Crud interface
+    private Object[] toRow() {
+        return new Object[] { gameID, userID, FORMAT.dateForDB(purchaseDate), price };
+    }
+
     @Override
     public int create() throws SQLException {
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "INSERT INTO purchase VALUES (?, ?, ?, ?)"
-            );
-        statement.setInt(1, gameID);
-        statement.setInt(2, userID);
-        statement.setDate(3, FORMAT.dateForDB(purchaseDate));
-        statement.setDouble(4, price);
-
         DB.modifyPurchases(this, "create");
 
-        return statement.executeUpdate();
+        return STORAGE.getPurchases().insert(this);
     }
 
     @Override
     public Purchase read() throws SQLException {
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "SELECT *" +
-                "\nFROM purchase" +
-                "\nWHERE game_id = ? AND user_id = ?"
-            );
-        statement.setInt(1, gameID);
-        statement.setInt(2, userID);
-
-        ResultSet rs = statement.executeQuery();
-        if (rs.next()) {
-            return new Purchase(
-                rs.getInt("game_id"),
-                rs.getInt("user_id"),
-                FORMAT.dateForClass(rs.getDate("purchase_date").toString()),
-                rs.getDouble("price"));
-        }
-        return null;
+        return STORAGE.getPurchases().find(getID());
     }
 
     @Override
@@ -173,23 +155,44 @@ public final class Purchase implements Crud<Purchase>, Formattable {
 
     @Override 
     public int delete() throws SQLException {
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM purchase" +
-                "\nWHERE game_id = ? AND user_id = ?"
-            );
-        statement.setInt(1, gameID);
-        statement.setInt(2, userID);
-
         DB.modifyPurchases(this, "delete");
 
-        int result = statement.executeUpdate();
+        int result = STORAGE.getPurchases().delete(this);
 
         AUDIT.writeToLibrariesCSV(userID);
 
         return result;
     }
 
+    public static int createAll(Collection<Purchase> purchases) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getPurchases().insertAll(purchases);
+            DB.modifyAll(purchases, "create", purchase -> DB.modifyPurchases(purchase, "create"));
+
+            work.commit();
+            return response;
+        }
+    }
+
+    public static int deleteAll(Collection<Purchase> purchases) throws SQLException {
+        int response;
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            response = STORAGE.getPurchases().deleteAll(purchases);
+            DB.modifyAll(purchases, "delete", purchase -> DB.modifyPurchases(purchase, "delete"));
+
+            work.commit();
+        }
+
+        Set<Integer> userIDs = new HashSet<>();
+        for (Purchase purchase : purchases) {
+            if (userIDs.add(purchase.getUserID())) {
+                AUDIT.writeToLibrariesCSV(purchase.getUserID());
+            }
+        }
+
+        return response;
+    }
+
 
     // Filters
     public static List<Purchase> filterByUser(List<Purchase> purchases, Integer userID) {
@@ -206,13 +209,7 @@ public final class Purchase implements Crud<Purchase>, Formattable {
 
 
     // Sorters
-    private static List<Purchase> sortByName(List<Purchase> purchases) {
-        return HelperService.sortByCriteria(
-            purchases, 
-            (purchase1, purchase2) -> purchase1.getGameName().compareTo(purchase2.getGameName())
-        );
-    }
-
+    // Price is what the client paid, not the game's current price
     private static List<Purchase> sortByPrice(List<Purchase> purchases) {
         return HelperService.sortByCriteria(
             purchases, 
@@ -220,23 +217,10 @@ public final class Purchase implements Crud<Purchase>, Formattable {
         );
     }
 
-    private static List<Purchase> sortByReleaseDate(List<Purchase> purchases) {
-        return HelperService.sortByCriteria(
-            purchases, 
-            (purchase1, purchase2) -> purchase1.getGameReleaseDate().compareTo(purchase2.getGameReleaseDate())
-        );
-    }
-
     public static List<Purchase> sortByCriteria(List<Purchase> purchases, String criteria) {
-        switch (criteria) {
-            case "Name":
-                return sortByName(purchases);
-            case "Price":
-                return sortByPrice(purchases);
-            case "Release date":
-                return sortByReleaseDate(purchases);
-            default:
-                return purchases;
+        if (criteria.equals("Price")) {
+            return sortByPrice(purchases);
         }
+        return DB.orderByGame(purchases, Purchase::getGameID, criteria);
     }
 }
@@ -1,10 +1,14 @@
 package models;
 
+import static misc.Constants.ID_BLOCK_SIZE;
 import interfaces.Formattable;
+import interfaces.Screen;
+import repository.IdAllocator;
 import services.HelperService;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 public abstract class User implements Formattable {
@@ -18,7 +22,8 @@ public abstract class User implements Formattable {
 
 
     // Other members
-    public static Integer nextID = 0;
+    private static final AtomicInteger nextID = new AtomicInteger();
+    private static final IdAllocator IDs = new IdAllocator("user", ID_BLOCK_SIZE, nextID);
 
 
     // Constructors
@@ -35,7 +40,7 @@ public abstract class User implements Formattable {
         this.isBanned = isBanned;
         this.type = type;
 
-        nextID = Integer.max(nextID, ID);
+        nextID.accumulateAndGet(ID, Math::max);
     }
 
     public User(User user) {
@@ -62,6 +67,12 @@ public abstract class User implements Formattable {
 
 
     // Getters
+    // A new ID from a block reserved in storage, never handed out twice across processes
+    // (IdAllocationException when no block can be reserved)
+    public static int allocateID() {
+        return IDs.next();
+    }
+
     public final Integer getID() {
         return ID;
     }
@@ -87,6 +98,19 @@ public abstract class User implements Formattable {
     }
 
 
+    // Rows
+    protected static final String[] USER_COLUMNS = { "user_id", "username", "password", "email", "is_banned", "type" };
+
+    // The user columns followed by the columns of the subclass table
+    protected Object[] toUserRow(Object... columns) {
+        Object[] row = new Object[USER_COLUMNS.length + columns.length];
+        Object[] user = { ID, username, password, email, isBanned, type };
+        System.arraycopy(user, 0, row, 0, user.length);
+        System.arraycopy(columns, 0, row, user.length, columns.length);
+        return row;
+    }
+
+
     // Formattable interface
     public String format() {
         return "Username: " + username +
@@ -105,5 +129,5 @@ public abstract class User implements Formattable {
     }
 
     // Menus
-    public abstract void menu() throws SQLException;
+    public abstract Screen menu() throws SQLException;
 }
@@ -3,19 +3,19 @@ package models;
 import static misc.Constants.IO;
 import static misc.Constants.FORMAT;
 import static misc.Constants.DB;
-import static misc.Constants.DATE;
+import static misc.Constants.STORAGE;
 import interfaces.Crud;
 import interfaces.Formattable;
+import repository.UnitOfWork;
 import services.HelperService;
+import storage.Schema;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.function.Predicate;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -23,13 +23,25 @@ public final class Wishlist implements Crud<Wishlist>, Formattable {
     // Fields
     private Integer gameID;
     private Integer userID;
-    private String addedDate;
+    private LocalDate addedDate;
+
+
+    // Storage schema
+    public static final Schema<Pair<Integer, Integer>, Wishlist> SCHEMA = new Schema<Pair<Integer, Integer>, Wishlist>(
+        "wishlist",
+        new String[] { "game_id", "user_id" },
+        Wishlist::toRow,
+        Wishlist::fromRow,
+        Wishlist::getID,
+        key -> new Object[] { key.getLeft(), key.getRight() }
+    )
+        .table("wishlist", "game_id", "user_id", "added_date");
 
 
     // Constructors
     public Wishlist(Integer gameID,
                     Integer userID,
-                    String addedDate) {
+                    LocalDate addedDate) {
         this.gameID = gameID;
         this.userID = userID;
         this.addedDate = addedDate;
@@ -46,7 +58,7 @@ public final class Wishlist implements Crud<Wishlist>, Formattable {
     @Override
     public String toString() {
         return "Game: " + getGameName() +
-               " \nAdded date: " + addedDate +
+               " \nAdded date: " + FORMAT.formatDate(addedDate) +
                (getPublished() ? " \nPrice: " + getPrice() : " \nUnpublished") + '\n';
     }
 
@@ -78,7 +90,7 @@ public final class Wishlist implements Crud<Wishlist>, Formattable {
         return DB.getGames().get(gameID).getPrice().toString();
     }
 
-    public String getGameReleaseDate() {
+    public LocalDate getGameReleaseDate() {
         return DB.getGames().get(gameID).getReleaseDate();
     }
 
@@ -86,7 +98,7 @@ public final class Wishlist implements Crud<Wishlist>, Formattable {
         return userID;
     }
 
-    public String getAddedDate() {
+    public LocalDate getAddedDate() {
         return addedDate;
     }
 
@@ -98,65 +110,34 @@ public final class Wishlist implements Crud<Wishlist>, Formattable {
         return DB.getGames().get(gameID).getPublished();
     }
 
+    private static Wishlist fromRow(Object[] row) {
+        return new Wishlist(
+            Schema.toInteger(row[0]),
+            Schema.toInteger(row[1]),
+            Schema.toDate(row[2])
+        );
+    }
+
     public static Map<Pair<Integer, Integer>, Wishlist> getWishlists() throws SQLException {
-        Map<Pair<Integer, Integer>, Wishlist> wishlists = new HashMap<>();
-
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "SELECT * FROM wishlist"
-            );
-
-        ResultSet rs = statement.executeQuery();
-        while (rs.next()) {
-            wishlists.put(
-                Pair.of(rs.getInt("game_id"), rs.getInt("user_id")),
-                new Wishlist(
-                    rs.getInt("game_id"),
-                    rs.getInt("user_id"),
-                    FORMAT.dateForClass(rs.getDate("added_date").toString())
-                )
-            );
-        }
-        return wishlists;
+        return STORAGE.getWishlists().loadAll();
     }
 
 
     // Crud interface
+    private Object[] toRow() {
+        return new Object[] { gameID, userID, FORMAT.dateForDB(addedDate) };
+    }
+
     @Override
     public int create() throws SQLException {
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "INSERT INTO wishlist VALUES (?, ?, ?)"
-            );
-        statement.setInt(1, gameID);
-        statement.setInt(2, userID);
-        statement.setDate(3, FORMAT.dateForDB(addedDate));
-
         DB.modifyWishlists(this, "create");
 
-        return statement.executeUpdate();
+        return STORAGE.getWishlists().insert(this);
     }
 
     @Override
     public Wishlist read() throws SQLException {
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "SELECT *"  +
-                "\nFROM wishlist" +
-                "\nWHERE game_id = ? AND user_id = ?"
-            );
-        statement.setInt(1, gameID);
-        statement.setInt(2, userID);
-
-        ResultSet rs = statement.executeQuery();
-        if (rs.next()) {
-            return new Wishlist(
-                rs.getInt("game_id"),
-                rs.getInt("user_id"),
-                FORMAT.dateForClass(rs.getDate("added_date").toString())
-            );
-        }
-        return null;
+        return STORAGE.getWishlists().find(getID());
     }
 
     @Override
@@ -166,17 +147,29 @@ public final class Wishlist implements Crud<Wishlist>, Formattable {
 
     @Override 
     public int delete() throws SQLException {
-        PreparedStatement statement = DB.getConnection()
-            .prepareStatement(
-                "DELETE FROM wishlist" +
-                "\nWHERE game_id = ? AND user_id = ?"
-            );
-        statement.setInt(1, gameID);
-        statement.setInt(2, userID);
-
         DB.modifyWishlists(this, "delete");
 
-        return statement.executeUpdate();
+        return STORAGE.getWishlists().delete(this);
+    }
+
+    public static int createAll(Collection<Wishlist> wishlists) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getWishlists().insertAll(wishlists);
+            DB.modifyAll(wishlists, "create", wishlist -> DB.modifyWishlists(wishlist, "create"));
+
+            work.commit();
+            return response;
+        }
+    }
+
+    public static int deleteAll(Collection<Wishlist> wishlists) throws SQLException {
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            int response = STORAGE.getWishlists().deleteAll(wishlists);
+            DB.modifyAll(wishlists, "delete", wishlist -> DB.modifyWishlists(wishlist, "delete"));
+
+            work.commit();
+            return response;
+        }
     }
 
 
@@ -201,37 +194,7 @@ public final class Wishlist implements Crud<Wishlist>, Formattable {
 
 
     // Sorters
-    private static List<Wishlist> sortByName(List<Wishlist> wishlists) {
-        return HelperService.sortByCriteria(
-            wishlists, 
-            (wishlist1, wishlist2) -> wishlist1.getGameName().compareTo(wishlist2.getGameName())
-        );
-    }
-
-    private static List<Wishlist> sortByPrice(List<Wishlist> wishlists) {
-        return HelperService.sortByCriteria(
-            wishlists, 
-            (wishlist1, wishlist2) -> wishlist1.getPrice().compareTo(wishlist2.getPrice())
-        );
-    }
-
-    private static List<Wishlist> sortByReleaseDate(List<Wishlist> wishlists) {
-        return HelperService.sortByCriteria(
-            wishlists, 
-            (wishlist1, wishlist2) -> wishlist1.getGameReleaseDate().compareTo(wishlist2.getGameReleaseDate())
-        );
-    }
-
     public static List<Wishlist> sortByCriteria(List<Wishlist> wishlists, String criteria) {
-        switch (criteria) {
-            case "Name":
-                return sortByName(wishlists);
-            case "Price":
-                return sortByPrice(wishlists);
-            case "Release date":
-                return sortByReleaseDate(wishlists);
-            default:
-                return wishlists;
-        }
+        return DB.orderByGame(wishlists, Wishlist::getGameID, criteria);
     }
 }
@@ -0,0 +1,341 @@
+package repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class ConnectionPool {
+    // Configuration
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int size;
+    private final long idleTimeout;
+    private final long borrowTimeout;
+    private final int validationTimeout;
+
+
+    // Pool state
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final ThreadLocal<Lease> leases = new ThreadLocal<>();
+    private volatile boolean closed = false;
+
+
+    // Evicts idle connections even while nothing borrows, so a quiet pool does not keep them open
+    // until the server drops them (acquire() also evicts, before handing one out)
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "pool-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+
+    // Metrics
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+
+    // Constructors
+    public ConnectionPool(String url,
+                          String user,
+                          String password,
+                          int size,
+                          long idleTimeout,
+                          long borrowTimeout,
+                          int validationTimeout) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.size = size;
+        this.idleTimeout = idleTimeout;
+        this.borrowTimeout = borrowTimeout;
+        this.validationTimeout = validationTimeout;
+        this.permits = new Semaphore(size, true);
+
+        long period = Math.max(idleTimeout / 2, 1);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+
+    // Borrowing and releasing
+    /*
+        Borrows are re-entrant per thread: a nested getConnection() (e.g. update() calling read())
+        shares the connection already held by the thread, and the physical connection goes back
+        to the pool once the outermost handle is closed.
+    */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool is closed");
+        }
+
+        Lease lease = leases.get();
+        if (lease == null) {
+            lease = new Lease(acquire());
+            leases.set(lease);
+        }
+        ++lease.depth;
+        borrowed.incrementAndGet();
+
+        return (Connection)Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new Handle(lease)
+        );
+    }
+
+    // A connection outside the thread's lease, so its statements never join the thread's transaction
+    public Connection borrowSeparate() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool is closed");
+        }
+
+        Lease lease = new Lease(acquire());
+        ++lease.depth;
+        borrowed.incrementAndGet();
+
+        return (Connection)Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new Handle(lease)
+        );
+    }
+
+    private Connection acquire() throws SQLException {
+        acquired.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire()) {
+                waited.incrementAndGet();
+                if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                    throw new SQLException("Timed out after " + borrowTimeout + " ms waiting for a database connection");
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        finally {
+            long wait = System.nanoTime() - start;
+            totalWaitNanos.addAndGet(wait);
+            maxWaitNanos.accumulateAndGet(wait, Long::max);
+        }
+
+        try {
+            evictIdle();
+
+            IdleConnection candidate;
+            while ((candidate = idle.pollFirst()) != null) {
+                if (candidate.connection.isValid(validationTimeout)) {
+                    return candidate.connection;
+                }
+                discard(candidate.connection);
+            }
+
+            opened.incrementAndGet();
+            return DriverManager.getConnection(url, user, password);
+        }
+        catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(Lease lease) {
+        if (--lease.depth > 0) {
+            return;
+        }
+        if (leases.get() == lease) {
+            leases.remove();
+        }
+
+        try {
+            if (closed || lease.connection.isClosed()) {
+                discard(lease.connection);
+            }
+            else {
+                if (!lease.connection.getAutoCommit()) {
+                    lease.connection.rollback();
+                    lease.connection.setAutoCommit(true);
+                }
+                idle.offerFirst(new IdleConnection(lease.connection, System.currentTimeMillis()));
+            }
+        }
+        catch (SQLException e) {
+            discard(lease.connection);
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<IdleConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext()) {
+            IdleConnection candidate = iterator.next();
+            if (now - candidate.since >= idleTimeout && idle.removeFirstOccurrence(candidate)) {
+                evicted.incrementAndGet();
+                discard(candidate.connection);
+            }
+        }
+    }
+
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            discard(candidate.connection);
+        }
+    }
+
+    private static void discard(Connection connection) {
+        StatementExecutor.forget(connection);
+        try {
+            connection.close();
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    // Getters
+    public int getSize() {
+        return size;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return size - permits.availablePermits();
+    }
+
+    public long getBorrowCount() {
+        return borrowed.get();
+    }
+
+    public long getWaitCount() {
+        return waited.get();
+    }
+
+    public double getAverageWaitMillis() {
+        // Re-entrant borrows never wait, so the average is over the physical acquires only
+        long acquires = acquired.get();
+        return acquires == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / acquires;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public long getOpenedCount() {
+        return opened.get();
+    }
+
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "pool(size=%d, active=%d, idle=%d, borrows=%d, waits=%d, avg wait=%.3f ms, max wait=%.3f ms, opened=%d, evicted=%d)",
+            size,
+            getActiveCount(),
+            getIdleCount(),
+            getBorrowCount(),
+            getWaitCount(),
+            getAverageWaitMillis(),
+            getMaxWaitMillis(),
+            getOpenedCount(),
+            getEvictedCount()
+        );
+    }
+
+
+    // Helpers
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long since;
+
+        private IdleConnection(Connection connection, long since) {
+            this.connection = connection;
+            this.since = since;
+        }
+    }
+
+    private static final class Lease {
+        private final Connection connection;
+        private int depth = 0;
+
+        private Lease(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final Lease lease;
+        private boolean released = false;
+
+        private Handle(Lease lease) {
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(lease);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || lease.connection.isClosed();
+                case "unwrap":
+                    if (((Class<?>)args[0]).isInstance(lease.connection)) {
+                        return lease.connection;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            if (released) {
+                throw new SQLException("The connection has already been returned to the pool");
+            }
+
+            try {
+                return method.invoke(lease.connection, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
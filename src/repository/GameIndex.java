@@ -0,0 +1,223 @@
+package repository;
+
+import models.Game;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/*
+    Games kept in name, price and release date order, updated with every game change, so the
+    sorted menus iterate instead of re-sorting and range queries are a subMap away.
+    Ties are ordered by game ID; games without a price or release date (unpublished) come last.
+*/
+final class GameIndex {
+    // Indexes
+    private final Sorted<String> byName = new Sorted<>(Game::getName);
+    private final Sorted<Double> byPrice = new Sorted<>(game -> game.getPublished() ? game.getPrice() : null);
+    private final Sorted<Long> byReleaseDate = new Sorted<>(game -> epochDay(game.getReleaseDate()));
+
+
+    // Queries share the lock, changes take it alone
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    // Changes
+    void add(Game game) {
+        lock.writeLock().lock();
+        try {
+            byName.add(game);
+            byPrice.add(game);
+            byReleaseDate.add(game);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Game game) {
+        lock.writeLock().lock();
+        try {
+            byName.remove(game);
+            byPrice.remove(game);
+            byReleaseDate.remove(game);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void rebuild(Collection<Game> games) {
+        lock.writeLock().lock();
+        try {
+            byName.clear();
+            byPrice.clear();
+            byReleaseDate.clear();
+            for (Game game : games) {
+                add(game);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    // Queries
+    int size() {
+        lock.readLock().lock();
+        try {
+            return byName.size;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Games in the given order ("Name", "Price", "Release date"), or null for an unknown criteria
+    List<Game> ordered(String criteria) {
+        lock.readLock().lock();
+        try {
+            Sorted<?> index = of(criteria);
+            return index == null ? null : index.ordered();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Comparator<Game> comparator(String criteria) {
+        lock.readLock().lock();
+        try {
+            Sorted<?> index = of(criteria);
+            return index == null ? null : index.comparator();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Game> priceBetween(double min, double max) {
+        lock.readLock().lock();
+        try {
+            return byPrice.values(byPrice.entries.subMap(min, true, max, true));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Game> releasedBetween(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            return byReleaseDate.values(byReleaseDate.entries.subMap(from.toEpochDay(), true, to.toEpochDay(), true));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Game> releasedSince(LocalDate from) {
+        lock.readLock().lock();
+        try {
+            return byReleaseDate.values(byReleaseDate.entries.tailMap(from.toEpochDay(), true).headMap(Long.MAX_VALUE, true));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Sorted<?> of(String criteria) {
+        switch (criteria) {
+            case "Name":
+                return byName;
+            case "Price":
+                return byPrice;
+            case "Release date":
+                return byReleaseDate;
+            default:
+                return null;
+        }
+    }
+
+    private static Long epochDay(LocalDate date) {
+        return date == null ? null : date.toEpochDay();
+    }
+
+
+    // One index: key -> (game ID -> game), missing keys last
+    private static final class Sorted<K extends Comparable<K>> {
+        private final Function<Game, K> key;
+        private final NavigableMap<K, NavigableMap<Integer, Game>> entries =
+            new TreeMap<>(Comparator.nullsLast(Comparator.naturalOrder()));
+        // Concurrent, as the comparators read it after the lock is released (hence Optional for missing keys)
+        private final Map<Integer, Optional<K>> keys = new ConcurrentHashMap<>();
+        private int size = 0;
+
+        private Sorted(Function<Game, K> key) {
+            this.key = key;
+        }
+
+        private void add(Game game) {
+            remove(game);
+            K value = key.apply(game);
+            entries.computeIfAbsent(value, k -> new TreeMap<>()).put(game.getID(), game);
+            keys.put(game.getID(), Optional.ofNullable(value));
+            ++size;
+        }
+
+        // Removes by ID with the key the game was indexed under, which may differ from its current one
+        private void remove(Game game) {
+            if (!keys.containsKey(game.getID())) {
+                return;
+            }
+
+            K value = keys.remove(game.getID()).orElse(null);
+            NavigableMap<Integer, Game> games = entries.get(value);
+            games.remove(game.getID());
+            if (games.isEmpty()) {
+                entries.remove(value);
+            }
+            --size;
+        }
+
+        private void clear() {
+            entries.clear();
+            keys.clear();
+            size = 0;
+        }
+
+        private List<Game> ordered() {
+            return values(entries);
+        }
+
+        private List<Game> values(Map<K, NavigableMap<Integer, Game>> range) {
+            List<Game> games = new ArrayList<>();
+            for (NavigableMap<Integer, Game> tied : range.values()) {
+                games.addAll(tied.values());
+            }
+            return games;
+        }
+
+        // Compares by the indexed keys, so no key is recomputed per comparison
+        private Comparator<Game> comparator() {
+            Comparator<Game> byKey = Comparator.comparing(
+                game -> {
+                    Optional<K> indexed = keys.get(game.getID());
+                    return indexed != null ? indexed.orElse(null) : key.apply(game);
+                },
+                Comparator.nullsLast(Comparator.naturalOrder())
+            );
+            return byKey.thenComparing(Game::getID);
+        }
+    }
+}
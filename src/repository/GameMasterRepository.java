@@ -3,12 +3,39 @@ package repository;
 import static misc.Constants.DATABASE_URL;
 import static misc.Constants.DATABASE_USER;
 import static misc.Constants.DATABASE_PASSWORD;
+import static misc.Constants.LOADER_THREADS;
+import static misc.Constants.POOL_SIZE;
+import static misc.Constants.POOL_IDLE_TIMEOUT;
+import static misc.Constants.POOL_BORROW_TIMEOUT;
+import static misc.Constants.POOL_VALIDATION_TIMEOUT;
+import static misc.Constants.STORAGE_ENGINE;
+import static misc.Constants.STORAGE_FOLDER;
 import static misc.Constants.AUDIT;
 import models.*;
+import storage.FileEngine;
+import storage.MySQLEngine;
+import storage.StorageEngine;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import org.apache.commons.lang3.tuple.Pair;
 
 public final class GameMasterRepository {
@@ -17,44 +44,381 @@ public final class GameMasterRepository {
 
 
     // Database members
-    private static Connection connection = null;
+    private static final ConnectionPool pool = new ConnectionPool(
+        DATABASE_URL,
+        DATABASE_USER,
+        DATABASE_PASSWORD,
+        POOL_SIZE,
+        POOL_IDLE_TIMEOUT,
+        POOL_BORROW_TIMEOUT,
+        POOL_VALIDATION_TIMEOUT
+    );
+    private static final StorageEngine storage = STORAGE_ENGINE.equals("file")
+        ? new FileEngine(STORAGE_FOLDER)
+        : new MySQLEngine();
 
 
-    // Other members
-    private static Map<Integer, Client> clients = new HashMap<>();
-    private static Map<Integer, Provider> providers = new HashMap<>();
-    private static Map<Integer, Admin> admins = new HashMap<>();
-    private static Map<Pair<Integer, Integer>, Contract> contracts = new HashMap<>();
-    private static Map<Integer, Game> games = new HashMap<>();
-    private static Map<Integer, DLC> DLCs = new HashMap<>();
-    private static Map<Pair<Integer, Integer>, Purchase> purchases = new HashMap<>();
-    private static Map<Pair<Integer, Integer>, Wishlist> wishlists = new HashMap<>();
+    // Startup loading (table -> pending load, table -> load time in ms)
+    private static final Map<String, CompletableFuture<Void>> loads = new ConcurrentHashMap<>();
+    private static final Map<String, Long> loadTimes = new ConcurrentHashMap<>();
+
+
+    // Batch writes (per thread, as sessions change the repository concurrently)
+    private static final ThreadLocal<Boolean> auditSuppressed = ThreadLocal.withInitial(() -> false);
+
+
+    // Set while the snapshot journal is replayed, so replayed changes are not journaled again
+    private static final ThreadLocal<Boolean> replaying = ThreadLocal.withInitial(() -> false);
+
+
+    // Set by seed: the maps no longer follow storage, so changes are neither journaled nor audited
+    private static volatile boolean detached = false;
+
+
+    // Write locks (see StripedLocks)
+    private static final int LOCK_STRIPES = 64;
+    private static final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+
+
+    /*
+        Other members
+        Every map is concurrent and the reloaded ones are published through volatile fields, so
+        sessions read them without locking while others change them.
+    */
+    private static volatile Map<Integer, Client> clients = new ConcurrentHashMap<>();
+    private static volatile Map<Integer, Provider> providers = new ConcurrentHashMap<>();
+    private static volatile Map<Integer, Admin> admins = new ConcurrentHashMap<>();
+    private static volatile Map<Pair<Integer, Integer>, Contract> contracts = new ConcurrentHashMap<>();
+    private static volatile Map<Integer, Game> games = new ConcurrentHashMap<>();
+    private static volatile Map<Integer, DLC> DLCs = new ConcurrentHashMap<>();
+    private static volatile Map<Pair<Integer, Integer>, Purchase> purchases = new ConcurrentHashMap<>();
+    private static volatile Map<Pair<Integer, Integer>, Wishlist> wishlists = new ConcurrentHashMap<>();
+
+
+    // Secondary indexes (outer key -> inner key -> entity)
+    private static volatile Map<Integer, Map<Integer, Purchase>> purchasesByUser = new ConcurrentHashMap<>();
+    private static volatile Map<Integer, Map<Integer, Purchase>> purchasesByGame = new ConcurrentHashMap<>();
+    private static volatile Map<Integer, Map<Integer, Wishlist>> wishlistsByUser = new ConcurrentHashMap<>();
+    private static volatile Map<Integer, Map<Integer, Wishlist>> wishlistsByGame = new ConcurrentHashMap<>();
+    private static volatile Map<String, User> usersByUsername = new ConcurrentHashMap<>();
+
+
+    // Library aggregates (client -> games, DLCs and money spent), kept in step with purchases
+    private static final Map<Integer, LibraryStats> libraryStats = new ConcurrentHashMap<>();
+
+
+    // Below catalog size / ORDER_BY_INDEX_RATIO items, orderByGame sorts instead of walking the index
+    private static final int ORDER_BY_INDEX_RATIO = 8;
+
+
+    // Owned / wishlisted bitsets behind the storefront lists
+    private static final OwnershipMatrix ownership = new OwnershipMatrix();
+
+
+    // Games in name, price and release date order
+    private static final GameIndex gameIndex = new GameIndex();
+
+
+    // Trigram and word indexes over the game names
+    private static final GameSearch gameSearch = new GameSearch();
+
+
+    // Role views (maintained incrementally, exposed read-only)
+    private static final Map<Integer, User> users = new ConcurrentHashMap<>();
+    private static final Map<Integer, Provider> developers = new ConcurrentHashMap<>();
+    private static final Map<Integer, Provider> publishers = new ConcurrentHashMap<>();
+    private static final Map<Integer, User> usersView = Collections.unmodifiableMap(users);
+    private static final Map<Integer, Provider> developersView = Collections.unmodifiableMap(developers);
+    private static final Map<Integer, Provider> publishersView = Collections.unmodifiableMap(publishers);
 
 
     // Constructors
     private GameMasterRepository() {}
 
 
-    // Connecting, loading and closing the database
-    static {
+    // Loading and closing the database
+    public static void loadDatabase() {
+        if (restoreSnapshot()) {
+            return;
+        }
+
+        try {
+            Snapshot.discard();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(LOADER_THREADS);
+
+        load(executor, "client", () -> clients = concurrent(Client.getClients()));
+        load(executor, "provider", () -> providers = concurrent(Provider.getProviders()));
+        load(executor, "admin", () -> admins = concurrent(Admin.getAdmins()));
+        load(executor, "contract", () -> contracts = concurrent(Contract.getContracts()));
+        load(executor, "game", () -> {
+            games = concurrent(Game.getGames());
+            indexGames();
+            ownership.invalidateCatalog();
+        });
+        load(executor, "dlc", () -> {
+            DLCs = concurrent(DLC.getDLCs());
+            ownership.invalidateCatalog();
+        });
+        load(executor, "purchase", () -> {
+            purchases = concurrent(Purchase.getPurchases());
+            indexPurchases();
+        });
+        load(executor, "wishlist", () -> {
+            wishlists = concurrent(Wishlist.getWishlists());
+            indexWishlists();
+        });
+        loads.put(
+            "library",
+            CompletableFuture
+                .allOf(loads.get("game"), loads.get("purchase"))
+                .thenRun(GameMasterRepository::indexLibraries)
+        );
+        loads.put(
+            "user",
+            CompletableFuture
+                .allOf(loads.get("client"), loads.get("provider"), loads.get("admin"))
+                .thenRun(GameMasterRepository::indexUsers)
+        );
+
+        CompletableFuture
+            .allOf(loads.values().toArray(new CompletableFuture<?>[0]))
+            .whenComplete((result, error) -> reportLoadTimes());
+
+        executor.shutdown();
+    }
+
+    public static void closeDatabase() {
+        checkpoint();
+        storage.close();
+    }
+
+    // No change can land between the snapshot and the journal it replaces
+    public static void checkpoint() {
+        awaitAll();
+        locks.writeAll(() -> {
+            try {
+                Snapshot.checkpoint(List.of(
+                    clients.values(),
+                    providers.values(),
+                    admins.values(),
+                    contracts.values(),
+                    games.values(),
+                    DLCs.values(),
+                    purchases.values(),
+                    wishlists.values()
+                ));
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /*
+        Warm start: the maps come from the local snapshot plus the replayed journal, then the row
+        counts of every table are checked against the storage engine. Any mismatch (e.g. rows changed by another
+        client) falls back to the full reload.
+    */
+    private static boolean restoreSnapshot() {
+        long start = System.nanoTime();
         try {
-            connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
+            List<Object> entities = Snapshot.read();
+            if (entities == null) {
+                return false;
+            }
+
+            for (Object entity : entities) {
+                restore(entity);
+            }
+            indexUsers();
+            indexGames();
+            indexPurchases();
+            indexWishlists();
+            indexLibraries();
+
+            replaying.set(true);
+            auditSuppressed.set(true);
+            try {
+                Snapshot.replay((action, entity) -> replay(entity, action));
+            }
+            finally {
+                replaying.set(false);
+                auditSuppressed.set(false);
+            }
+
+            if (!matchesDatabase()) {
+                clearMaps();
+                return false;
+            }
         }
-        catch (SQLException e) {
+        catch (IOException | SQLException | RuntimeException e) {
             e.printStackTrace();
+            clearMaps();
+            return false;
         }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        loadTimes.put("snapshot", elapsed);
+        AUDIT.writeToActionsCSV("snapshot", "load (" + elapsed + " ms)");
+        return true;
+    }
+
+    // Replaces every map with the given entities without touching storage (benchmarks, data generators)
+    public static void seed(Collection<?> entities) {
+        awaitAll();
+        detached = true;
+        locks.writeAll(() -> {
+            clearMaps();
+            for (Object entity : entities) {
+                restore(entity);
+            }
+            indexUsers();
+            indexGames();
+            indexPurchases();
+            indexWishlists();
+            indexLibraries();
+        });
     }
 
+    private static boolean matchesDatabase() throws SQLException {
+        List<Integer> counts = storage.getRowCounts();
 
-    public static void loadDatabase() throws SQLException {
-        clients = Client.getClients();
-        providers = Provider.getProviders();
-        admins = Admin.getAdmins();
-        contracts = Contract.getContracts();
-        games = Game.getGames();
-        DLCs = DLC.getDLCs();
-        purchases = Purchase.getPurchases();
-        wishlists = Wishlist.getWishlists();
+        return List.of(
+            clients.size(),
+            providers.size(),
+            admins.size(),
+            contracts.size(),
+            games.size(),
+            DLCs.size(),
+            purchases.size(),
+            wishlists.size()
+        ).equals(counts);
+    }
+
+    private static void restore(Object entity) {
+        if (entity instanceof Client) {
+            clients.put(((Client)entity).getID(), (Client)entity);
+        }
+        else if (entity instanceof Provider) {
+            providers.put(((Provider)entity).getID(), (Provider)entity);
+        }
+        else if (entity instanceof Admin) {
+            admins.put(((Admin)entity).getID(), (Admin)entity);
+        }
+        else if (entity instanceof Contract) {
+            contracts.put(((Contract)entity).getID(), (Contract)entity);
+        }
+        else if (entity instanceof Game) {
+            games.put(((Game)entity).getID(), (Game)entity);
+        }
+        else if (entity instanceof DLC) {
+            DLCs.put(((DLC)entity).getID(), (DLC)entity);
+        }
+        else if (entity instanceof Purchase) {
+            purchases.put(((Purchase)entity).getID(), (Purchase)entity);
+        }
+        else if (entity instanceof Wishlist) {
+            wishlists.put(((Wishlist)entity).getID(), (Wishlist)entity);
+        }
+    }
+
+    private static void replay(Object entity, String action) {
+        // The journal holds interned action strings, so the == comparisons in modify* still hold
+        if (entity instanceof Client) {
+            modifyClients((Client)entity, action);
+        }
+        else if (entity instanceof Provider) {
+            modifyProviders((Provider)entity, action);
+        }
+        else if (entity instanceof Admin) {
+            modifyAdmins((Admin)entity, action);
+        }
+        else if (entity instanceof Contract) {
+            modifyContracts((Contract)entity, action);
+        }
+        else if (entity instanceof Game) {
+            modifyGames((Game)entity, action);
+        }
+        else if (entity instanceof DLC) {
+            modifyDLCs((DLC)entity, action);
+        }
+        else if (entity instanceof Purchase) {
+            modifyPurchases((Purchase)entity, action);
+        }
+        else if (entity instanceof Wishlist) {
+            modifyWishlists((Wishlist)entity, action);
+        }
+    }
+
+    private static void clearMaps() {
+        clients = new ConcurrentHashMap<>();
+        providers = new ConcurrentHashMap<>();
+        admins = new ConcurrentHashMap<>();
+        contracts = new ConcurrentHashMap<>();
+        games = new ConcurrentHashMap<>();
+        DLCs = new ConcurrentHashMap<>();
+        purchases = new ConcurrentHashMap<>();
+        wishlists = new ConcurrentHashMap<>();
+        indexUsers();
+        indexGames();
+        indexPurchases();
+        indexWishlists();
+        indexLibraries();
+        ownership.invalidateCatalog();
+    }
+
+    private static void load(ExecutorService executor, String table, TableLoader loader) {
+        loads.put(table, CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                loader.load();
+            }
+            catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+            finally {
+                loadTimes.put(table, (System.nanoTime() - start) / 1_000_000);
+            }
+        }, executor));
+    }
+
+    private static void await(String table) {
+        CompletableFuture<Void> pending = loads.get(table);
+        if (pending == null || pending.isDone() && !pending.isCompletedExceptionally()) {
+            return;
+        }
+
+        try {
+            pending.join();
+        }
+        catch (CompletionException e) {
+            e.getCause().printStackTrace();
+            loads.remove(table);
+        }
+    }
+
+    private static void awaitAll() {
+        for (String table : new ArrayList<>(loads.keySet())) {
+            await(table);
+        }
+    }
+
+    // Stores return concurrent maps, anything else is copied into one
+    private static <K, T> Map<K, T> concurrent(Map<K, T> entities) {
+        return entities instanceof ConcurrentHashMap ? entities : new ConcurrentHashMap<>(entities);
+    }
+
+    private static void reportLoadTimes() {
+        for (String table : List.of("client", "provider", "admin", "contract", "game", "dlc", "purchase", "wishlist")) {
+            if (loadTimes.containsKey(table)) {
+                AUDIT.writeToActionsCSV(table, "load (" + loadTimes.get(table) + " ms)");
+            }
+        }
     }
 
 
@@ -67,75 +431,470 @@ public final class GameMasterRepository {
         return INSTANCE;
     }
 
-    public static Connection getConnection() {
-        return connection;
+    public static Connection getConnection() throws SQLException {
+        return pool.borrow();
+    }
+
+    public static boolean isDetached() {
+        return detached;
+    }
+
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    public static StorageEngine getStorage() {
+        return storage;
+    }
+
+    public static Map<String, Long> getLoadTimes() {
+        return new LinkedHashMap<>(loadTimes);
     }
 
     public static Map<Integer, Client> getClients() {
+        await("client");
         return clients;
     }
 
     public static Map<Integer, Provider> getProviders() {
+        await("provider");
         return providers;
     }
 
     public static Map<Integer, Provider> getDevelopers() {
-        Map<Integer, Provider> developers = new HashMap<>();
-        for (Provider provider : providers.values()) {
-            if (provider.getTypeProvider().equals("developer")) {
-                developers.put(provider.getID(), provider);
-            }
-        }
-        return developers;
+        await("user");
+        return developersView;
     }
 
     public static Map<Integer, Provider> getPublishers() {
-        Map<Integer, Provider> publishers = new HashMap<>();
-        for (Provider provider : providers.values()) {
-            if (provider.getTypeProvider().equals("publisher")) {
-                publishers.put(provider.getID(), provider);
-            }
-        }
-        return publishers;
+        await("user");
+        return publishersView;
     }
 
     public static Map<Integer, Admin> getAdmins() {
+        await("admin");
         return admins;
     }
 
 
     public static Map<Integer, User> getUsers() {
-        Map<Integer, User> users = new HashMap<>();
-        users.putAll(clients);
-        users.putAll(providers);
-        users.putAll(admins);
-        return users;
+        await("user");
+        return usersView;
     }
 
     public static Map<Pair<Integer, Integer>, Contract> getContracts() {
+        await("contract");
         return contracts;
     }
 
-    public static  Map<Integer, Game> getGames() {
+    public static Map<Integer, Game> getGames() {
+        await("game");
         return games;
     }
 
     public static Map<Integer, DLC> getDLCs() {
+        await("dlc");
         return DLCs;
     }
 
     public static Map<Pair<Integer, Integer>, Purchase> getPurchases() {
+        await("purchase");
         return purchases;
     }
 
     public static Map<Pair<Integer, Integer>, Wishlist> getWishlists() {
+        await("wishlist");
         return wishlists;
     }
 
+    public static User getUserByUsername(String username) {
+        await("user");
+        return usersByUsername.get(normalizeUsername(username));
+    }
+
+    public static LibraryStats getLibraryStats(int userID) {
+        await("library");
+        LibraryStats stats = libraryStats.get(userID);
+        return stats == null ? new LibraryStats() : stats;
+    }
+
+    public static List<Game> getDisowned(int userID, String type) {
+        await("game");
+        await("dlc");
+        await("purchase");
+        return toGames(ownership.disowned(userID, type, games, DLCs));
+    }
+
+    public static List<Game> getNotInWishlist(int userID, String type) {
+        await("game");
+        await("dlc");
+        await("purchase");
+        await("wishlist");
+        return toGames(ownership.notInWishlist(userID, type, games, DLCs));
+    }
+
+    public static List<Game> getGamesByPrice(double min, double max) {
+        await("game");
+        return gameIndex.priceBetween(min, max);
+    }
+
+    public static List<Game> getGamesReleasedBetween(LocalDate from, LocalDate to) {
+        await("game");
+        return gameIndex.releasedBetween(from, to);
+    }
+
+    public static List<Game> getGamesReleasedSince(LocalDate from) {
+        await("game");
+        return gameIndex.releasedSince(from);
+    }
+
+    // Best `limit` games among those accepted by the filter whose name contains the query, or a close spelling of it
+    public static List<Game> searchGames(String query, int limit, Predicate<Game> filter) {
+        await("game");
+        List<Game> found = new ArrayList<>();
+        Map<Integer, Game> catalog = games;
+        for (Integer gameID : gameSearch.search(query, limit, gameID -> catalog.containsKey(gameID) && filter.test(catalog.get(gameID)))) {
+            Game game = catalog.get(gameID);
+            if (game != null) {
+                found.add(game);
+            }
+        }
+        return found;
+    }
+
+    /*
+        Orders items by their game ("Name", "Price", "Release date"). A list covering a good part
+        of the catalog is produced by walking the sorted index and keeping the listed games; a
+        short one (a library, a wishlist) is sorted with the index's precomputed keys instead.
+    */
+    public static <T> List<T> orderByGame(List<T> items, Function<T, Integer> gameID, String criteria) {
+        await("game");
+        Comparator<Game> comparator = gameIndex.comparator(criteria);
+        if (comparator == null) {
+            return items;
+        }
+
+        // Items of games deleted meanwhile by another session are left out, as the index walk leaves them out
+        if (items.size() * ORDER_BY_INDEX_RATIO < gameIndex.size()) {
+            List<Pair<Game, T>> pairs = new ArrayList<>(items.size());
+            for (T item : items) {
+                Game game = games.get(gameID.apply(item));
+                if (game != null) {
+                    pairs.add(Pair.of(game, item));
+                }
+            }
+            pairs.sort((pair1, pair2) -> comparator.compare(pair1.getLeft(), pair2.getLeft()));
+
+            List<T> ordered = new ArrayList<>(items.size());
+            for (Pair<Game, T> pair : pairs) {
+                ordered.add(pair.getRight());
+            }
+            return ordered;
+        }
+
+        Map<Integer, List<T>> byGame = new HashMap<>();
+        for (T item : items) {
+            byGame.computeIfAbsent(gameID.apply(item), key -> new ArrayList<>(1)).add(item);
+        }
+        List<T> ordered = new ArrayList<>(items.size());
+        for (Game game : gameIndex.ordered(criteria)) {
+            List<T> listed = byGame.get(game.getID());
+            if (listed != null) {
+                ordered.addAll(listed);
+            }
+        }
+        return ordered;
+    }
+
+    public static List<Purchase> getPurchasesOfUser(int userID) {
+        await("purchase");
+        return lookup(purchasesByUser, userID);
+    }
+
+    public static List<Purchase> getPurchasesOfGame(int gameID) {
+        await("purchase");
+        return lookup(purchasesByGame, gameID);
+    }
+
+    public static List<Wishlist> getWishlistsOfUser(int userID) {
+        await("wishlist");
+        return lookup(wishlistsByUser, userID);
+    }
+
+    public static List<Wishlist> getWishlistsOfGame(int gameID) {
+        await("wishlist");
+        return lookup(wishlistsByGame, gameID);
+    }
+
+
+    // Index helpers
+    private static <T> List<T> lookup(Map<Integer, Map<Integer, T>> index, int key) {
+        Map<Integer, T> entries = index.get(key);
+        if (entries == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(entries.values());
+    }
+
+    // Atomic per outer key, so an emptied entry is never dropped while another thread adds to it
+    private static <T> void index(Map<Integer, Map<Integer, T>> index, Integer outer, Integer inner, T entity, String action) {
+        if (action == "delete") {
+            index.computeIfPresent(outer, (key, entries) -> {
+                entries.remove(inner);
+                return entries.isEmpty() ? null : entries;
+            });
+            return;
+        }
+        index.compute(outer, (key, entries) -> {
+            Map<Integer, T> updated = entries != null ? entries : new ConcurrentHashMap<>();
+            updated.put(inner, entity);
+            return updated;
+        });
+    }
+
+    // A game deleted since the bitset was computed is left out
+    private static List<Game> toGames(BitSet IDs) {
+        Map<Integer, Game> catalog = games;
+        List<Game> result = new ArrayList<>(IDs.cardinality());
+        for (int gameID = IDs.nextSetBit(0); gameID >= 0; gameID = IDs.nextSetBit(gameID + 1)) {
+            Game game = catalog.get(gameID);
+            if (game != null) {
+                result.add(game);
+            }
+        }
+        return result;
+    }
+
+    private static String normalizeUsername(String username) {
+        return username.toLowerCase();
+    }
+
+    private static Map<Integer, Provider> getRoleView(Provider provider) {
+        if (provider.getTypeProvider().equals("developer")) {
+            return developers;
+        }
+        if (provider.getTypeProvider().equals("publisher")) {
+            return publishers;
+        }
+        return null;
+    }
+
+    private static void indexUser(User previous, User user, String action) {
+        if (previous != null) {
+            usersByUsername.remove(normalizeUsername(previous.getUsername()), previous);
+            users.remove(previous.getID());
+            developers.remove(previous.getID());
+            publishers.remove(previous.getID());
+        }
+        if (action == "delete" || user == null) {
+            if (user != null) {
+                users.remove(user.getID());
+                developers.remove(user.getID());
+                publishers.remove(user.getID());
+            }
+            return;
+        }
+
+        usersByUsername.put(normalizeUsername(user.getUsername()), user);
+        users.put(user.getID(), user);
+        if (user instanceof Provider) {
+            Map<Integer, Provider> roleView = getRoleView((Provider)user);
+            if (roleView != null) {
+                roleView.put(user.getID(), (Provider)user);
+            }
+        }
+    }
+
+    private static void indexUsers() {
+        usersByUsername = new ConcurrentHashMap<>();
+        users.clear();
+        developers.clear();
+        publishers.clear();
+        for (Client client : clients.values()) {
+            indexUser(null, client, "create");
+        }
+        for (Provider provider : providers.values()) {
+            indexUser(null, provider, "create");
+        }
+        for (Admin admin : admins.values()) {
+            indexUser(null, admin, "create");
+        }
+    }
+
+    private static void indexGames() {
+        gameIndex.rebuild(games.values());
+        gameSearch.rebuild(games.values());
+    }
+
+    private static void indexPurchase(Purchase purchase, String action) {
+        index(purchasesByUser, purchase.getUserID(), purchase.getGameID(), purchase, action);
+        index(purchasesByGame, purchase.getGameID(), purchase.getUserID(), purchase, action);
+        ownership.own(purchase.getUserID(), purchase.getGameID(), action != "delete");
+    }
+
+    private static void indexPurchases() {
+        purchasesByUser = new ConcurrentHashMap<>();
+        purchasesByGame = new ConcurrentHashMap<>();
+        ownership.clearOwned();
+        for (Purchase purchase : purchases.values()) {
+            indexPurchase(purchase, "create");
+        }
+    }
+
+    private static void tally(Purchase purchase, Game game, int sign) {
+        libraryStats.compute(purchase.getUserID(), (key, stats) -> {
+            LibraryStats updated = (stats != null ? stats : new LibraryStats())
+                .add(game != null && game.getType().equals("dlc"), purchase.getPrice(), sign);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    private static void indexLibraries() {
+        libraryStats.clear();
+        for (Purchase purchase : purchases.values()) {
+            tally(purchase, games.get(purchase.getGameID()), 1);
+        }
+    }
+
+    private static void indexWishlist(Wishlist wishlist, String action) {
+        index(wishlistsByUser, wishlist.getUserID(), wishlist.getGameID(), wishlist, action);
+        index(wishlistsByGame, wishlist.getGameID(), wishlist.getUserID(), wishlist, action);
+        ownership.wish(wishlist.getUserID(), wishlist.getGameID(), action != "delete");
+    }
+
+    private static void indexWishlists() {
+        wishlistsByUser = new ConcurrentHashMap<>();
+        wishlistsByGame = new ConcurrentHashMap<>();
+        ownership.clearWishlisted();
+        for (Wishlist wishlist : wishlists.values()) {
+            indexWishlist(wishlist, "create");
+        }
+    }
+
+
+    // Cascades
+    /*
+        Mirror the deletes issued by Client.delete, Provider.delete and Game.delete
+        following the foreign keys in mysql/tables/create.sql:
+            PURCHASE, WISHLIST -> CLIENT(user_id), GAME(game_id)
+            DLC                -> GAME(game_id), GAME(base_game_id)
+            GAME               -> PROVIDER(developer_id), PROVIDER(publisher_id)
+            CONTRACT           -> PROVIDER(developer_id), PROVIDER(publisher_id)
+    */
+    private static void evictPurchase(Purchase purchase) {
+        purchases.remove(purchase.getID());
+        indexPurchase(purchase, "delete");
+    }
+
+    private static void evictWishlist(Wishlist wishlist) {
+        wishlists.remove(wishlist.getID());
+        indexWishlist(wishlist, "delete");
+    }
+
+    private static void cascadeClient(Integer userID) {
+        for (Purchase purchase : getPurchasesOfUser(userID)) {
+            evictPurchase(purchase);
+        }
+        for (Wishlist wishlist : getWishlistsOfUser(userID)) {
+            evictWishlist(wishlist);
+        }
+        libraryStats.remove(userID);
+        ownership.forgetUser(userID);
+    }
+
+    private static void cascadeGame(Game game) {
+        Integer gameID = game.getID();
+        for (Purchase purchase : getPurchasesOfGame(gameID)) {
+            tally(purchase, game, -1);
+            evictPurchase(purchase);
+        }
+        for (Wishlist wishlist : getWishlistsOfGame(gameID)) {
+            evictWishlist(wishlist);
+        }
+        DLCs.values().removeIf(dlc -> dlc.getID().equals(gameID) || dlc.getBaseGameID().equals(gameID));
+        ownership.invalidateCatalog();
+    }
+
+    private static void cascadeProvider(Integer providerID) {
+        contracts.values().removeIf(contract ->
+            contract.getDeveloperID().equals(providerID) || contract.getPublisherID().equals(providerID)
+        );
+
+        for (Game game : new ArrayList<>(games.values())) {
+            if (game.getDeveloperID().equals(providerID)) {
+                games.remove(game.getID());
+                gameIndex.remove(game);
+                gameSearch.remove(game);
+                cascadeGame(game);
+            }
+            else if (game.getPublisherID().equals(providerID)) {
+                Game republished = game.withPublisherID(game.getDeveloperID());
+                games.put(game.getID(), republished);
+                gameIndex.remove(game);
+                gameIndex.add(republished);
+                gameSearch.add(republished);
+            }
+        }
+        ownership.invalidateCatalog();
+    }
+
 
     // Helpers
+    @FunctionalInterface
+    private interface TableLoader {
+        void load() throws SQLException;
+    }
+
+    // Cascading deletes lock the whole repository, any other change only the stripe of its key
+    private static void write(Object key, boolean cascades, Runnable change) {
+        if (cascades) {
+            locks.writeAll(change);
+        }
+        else {
+            locks.write(key, change);
+        }
+    }
+
+    // Inside a unit of work the maps only change once its transaction has committed
+    private static boolean deferred(Runnable modification) {
+        UnitOfWork work = UnitOfWork.current();
+        if (work == null) {
+            return false;
+        }
+
+        work.afterCommit(modification);
+        return true;
+    }
+
+    // Applies a whole batch in one pass, with a single audit line instead of one per row
+    public static <T> void modifyAll(Collection<T> entities, String action, Consumer<T> modification) {
+        if (entities.isEmpty() || deferred(() -> modifyAll(entities, action, modification))) {
+            return;
+        }
+
+        if (!detached) {
+            AUDIT.writeToActionsCSV(
+                entities.iterator().next().getClass().getSimpleName(),
+                action + " (" + entities.size() + " rows)"
+            );
+        }
+        boolean suppressed = auditSuppressed.get();
+        auditSuppressed.set(true);
+        try {
+            entities.forEach(modification);
+        }
+        finally {
+            auditSuppressed.set(suppressed);
+        }
+    }
+
     public static <K, T> void modifyEntities(Map<K, T> entities, T entity, K key, String action) {
-        AUDIT.writeToActionsCSV(entity.getClass().getSimpleName(), action);
+        if (!auditSuppressed.get() && !detached) {
+            AUDIT.writeToActionsCSV(entity.getClass().getSimpleName(), action);
+        }
+        if (!replaying.get() && !detached) {
+            Snapshot.append(action, entity);
+        }
 
         if (action == "create") {
             entities.put(key, entity);
@@ -148,49 +907,120 @@ public final class GameMasterRepository {
         }
     }
 
-    public static void modifyClients(Client client, String action) throws SQLException {
-        modifyEntities(clients, client, client.getID(), action);
-        if (action == "delete") {
-            purchases = Purchase.getPurchases();
-            wishlists = Wishlist.getWishlists();
+    public static void modifyClients(Client client, String action) {
+        if (deferred(() -> modifyClients(client, action))) {
+            return;
         }
+        awaitAll();
+        write(client.getID(), action == "delete", () -> {
+            Client previous = clients.get(client.getID());
+            modifyEntities(clients, client, client.getID(), action);
+            indexUser(previous, client, action);
+            if (action == "delete") {
+                cascadeClient(client.getID());
+            }
+        });
     }
 
-    public static void modifyProviders(Provider provider, String action) throws SQLException {
-        modifyEntities(providers, provider, provider.getID(), action);
-        if (action == "delete") {
-            contracts = Contract.getContracts();
-            games = Game.getGames();
+    public static void modifyProviders(Provider provider, String action) {
+        if (deferred(() -> modifyProviders(provider, action))) {
+            return;
         }
+        awaitAll();
+        write(provider.getID(), action == "delete", () -> {
+            Provider previous = providers.get(provider.getID());
+            modifyEntities(providers, provider, provider.getID(), action);
+            indexUser(previous, provider, action);
+            if (action == "delete") {
+                cascadeProvider(provider.getID());
+            }
+        });
     }
 
     public static void modifyAdmins(Admin admin, String action) {
-        modifyEntities(admins, admin, admin.getID(), action);
+        if (deferred(() -> modifyAdmins(admin, action))) {
+            return;
+        }
+        awaitAll();
+        write(admin.getID(), false, () -> {
+            Admin previous = admins.get(admin.getID());
+            modifyEntities(admins, admin, admin.getID(), action);
+            indexUser(previous, admin, action);
+        });
     }
 
     public static void modifyContracts(Contract contract, String action) {
-        modifyEntities(contracts, contract, contract.getID(), action);
+        if (deferred(() -> modifyContracts(contract, action))) {
+            return;
+        }
+        awaitAll();
+        write(contract.getID(), false, () -> {
+            modifyEntities(contracts, contract, contract.getID(), action);
+        });
     }
 
-    public static void modifyGames(Game game, String action) throws SQLException {
-        modifyEntities(games, game, game.getID(), action);
-        if (action == "delete") {
-            clients = Client.getClients();
-            DLCs = DLC.getDLCs();
-            purchases = Purchase.getPurchases();
-            wishlists = Wishlist.getWishlists();
+    public static void modifyGames(Game game, String action) {
+        if (deferred(() -> modifyGames(game, action))) {
+            return;
         }
+        awaitAll();
+        write(game.getID(), action == "delete", () -> {
+            Game previous = games.get(game.getID());
+            modifyEntities(games, game, game.getID(), action);
+            if (previous != null) {
+                gameIndex.remove(previous);
+            }
+            if (action != "delete" && games.containsKey(game.getID())) {
+                gameIndex.add(game);
+                gameSearch.add(game);
+            }
+            else {
+                gameSearch.remove(game);
+            }
+            ownership.invalidateCatalog();
+            if (action == "delete") {
+                cascadeGame(game);
+            }
+        });
     }
 
     public static void modifyDLCs(DLC DLC, String action) {
-        modifyEntities(DLCs, DLC, DLC.getID(), action);
+        if (deferred(() -> modifyDLCs(DLC, action))) {
+            return;
+        }
+        awaitAll();
+        write(DLC.getID(), false, () -> {
+            modifyEntities(DLCs, DLC, DLC.getID(), action);
+            ownership.invalidateCatalog();
+        });
     }
 
     public static void modifyPurchases(Purchase purchase, String action) {
-        modifyEntities(purchases, purchase, purchase.getID(), action);
+        if (deferred(() -> modifyPurchases(purchase, action))) {
+            return;
+        }
+        awaitAll();
+        write(purchase.getID(), false, () -> {
+            Purchase previous = purchases.get(purchase.getID());
+            if (action == "create" && previous == null) {
+                tally(purchase, games.get(purchase.getGameID()), 1);
+            }
+            else if (action == "delete" && previous != null) {
+                tally(previous, games.get(previous.getGameID()), -1);
+            }
+            modifyEntities(purchases, purchase, purchase.getID(), action);
+            indexPurchase(purchase, action);
+        });
     }
 
     public static void modifyWishlists(Wishlist wishlist, String action) {
-        modifyEntities(wishlists, wishlist, wishlist.getID(), action);
+        if (deferred(() -> modifyWishlists(wishlist, action))) {
+            return;
+        }
+        awaitAll();
+        write(wishlist.getID(), false, () -> {
+            modifyEntities(wishlists, wishlist, wishlist.getID(), action);
+            indexWishlist(wishlist, action);
+        });
     }
 }
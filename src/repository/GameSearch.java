@@ -0,0 +1,492 @@
+package repository;
+
+import models.Game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/*
+    Inverted indexes over game names, updated with every game change, behind the client search.
+    Names are normalized (lower case, any run of other characters becomes one space) and padded
+    with spaces; every trigram of a name maps to the sorted IDs of the games containing it, and
+    every word to the games using it. A query of three or more characters intersects the lists
+    of its trigrams, shortest first, and only checks the survivors; a shorter one goes through
+    the words it is a prefix of.
+    Typos are corrected against the vocabulary (the distinct words of letters), which has its
+    own trigram index and is far smaller than the catalog: a query word that is not in the
+    vocabulary is replaced by the words within one or two edits of it (swapping two letters is one).
+    Matches rank: whole name, name prefix, word prefix, substring, corrected; then shorter names.
+*/
+final class GameSearch {
+    // Tuning
+    private static final int GRAM = 3;
+    private static final int FUZZY_MIN_LENGTH = 4;
+    private static final int LONG_WORD_LENGTH = 8;
+
+
+    // Indexes
+    private String[] names = new String[1024];
+    private final Map<String, IdList> grams = new HashMap<>();
+    private final NavigableMap<String, IdList> words = new TreeMap<>();
+    private final Map<String, Set<String>> vocabulary = new HashMap<>();
+
+
+    // Searches share the lock, changes take it alone
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    // Changes
+    void add(Game game) {
+        lock.writeLock().lock();
+        try {
+            int gameID = game.getID();
+            String name = normalize(game.getRawName());
+            String previous = gameID < names.length ? names[gameID] : null;
+            if (name.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                remove(gameID, previous);
+            }
+
+            if (gameID >= names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, gameID + 1));
+            }
+            names[gameID] = name;
+            for (String gram : grams(" " + name + " ")) {
+                grams.computeIfAbsent(gram, key -> new IdList()).add(gameID);
+            }
+            for (String word : name.split(" ")) {
+                IdList games = words.get(word);
+                if (games == null) {
+                    games = new IdList();
+                    words.put(word, games);
+                    if (correctable(word, FUZZY_MIN_LENGTH - 1)) {
+                        for (String gram : wordGrams(word)) {
+                            vocabulary.computeIfAbsent(gram, key -> new HashSet<>()).add(word);
+                        }
+                    }
+                }
+                games.add(gameID);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Game game) {
+        lock.writeLock().lock();
+        try {
+            int gameID = game.getID();
+            if (gameID < names.length && names[gameID] != null) {
+                remove(gameID, names[gameID]);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void rebuild(Collection<Game> games) {
+        lock.writeLock().lock();
+        try {
+            names = new String[1024];
+            grams.clear();
+            words.clear();
+            vocabulary.clear();
+            for (Game game : games) {
+                add(game);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(int gameID, String name) {
+        names[gameID] = null;
+        for (String gram : grams(" " + name + " ")) {
+            unlist(grams, gram, gameID);
+        }
+        for (String word : name.split(" ")) {
+            if (unlist(words, word, gameID) && correctable(word, FUZZY_MIN_LENGTH - 1)) {
+                for (String gram : wordGrams(word)) {
+                    Set<String> listed = vocabulary.get(gram);
+                    listed.remove(word);
+                    if (listed.isEmpty()) {
+                        vocabulary.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    // Removes the game from the key's list, dropping the list once empty (returns whether it was dropped)
+    private static boolean unlist(Map<String, IdList> index, String key, int gameID) {
+        IdList games = index.get(key);
+        if (games == null) {
+            return false;
+        }
+        games.remove(gameID);
+        if (games.size > 0) {
+            return false;
+        }
+        index.remove(key);
+        return true;
+    }
+
+
+    // Queries
+    // IDs of the best `limit` games matching the query and accepted by the filter, best first
+    List<Integer> search(String query, int limit, IntPredicate filter) {
+        lock.readLock().lock();
+        try {
+            String text = normalize(query);
+            if (text.isEmpty() || limit <= 0) {
+                return Collections.emptyList();
+            }
+
+            PriorityQueue<Match> best = new PriorityQueue<>(Comparator.reverseOrder());
+            if (text.length() >= GRAM) {
+                for (int gameID : substringCandidates(text)) {
+                    collect(best, gameID, text, limit, filter);
+                }
+            }
+            else {
+                BitSet candidates = prefixCandidates(text);
+                for (int gameID = candidates.nextSetBit(0); gameID >= 0; gameID = candidates.nextSetBit(gameID + 1)) {
+                    collect(best, gameID, text, limit, filter);
+                }
+            }
+
+            // With room left, every match so far is in `best`
+            if (best.size() < limit) {
+                BitSet corrected = correctedCandidates(text);
+                for (Match match : best) {
+                    corrected.clear(match.gameID);
+                }
+                for (int gameID = corrected.nextSetBit(0); gameID >= 0; gameID = corrected.nextSetBit(gameID + 1)) {
+                    if (filter.test(gameID)) {
+                        offer(best, 4, names[gameID], gameID, limit);
+                    }
+                }
+            }
+
+            List<Match> ordered = new ArrayList<>(best);
+            Collections.sort(ordered);
+            List<Integer> IDs = new ArrayList<>(ordered.size());
+            for (Match match : ordered) {
+                IDs.add(match.gameID);
+            }
+            return IDs;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(PriorityQueue<Match> best, int gameID, String text, int limit, IntPredicate filter) {
+        String name = names[gameID];
+        if (name.contains(text) && filter.test(gameID)) {
+            offer(best, rank(name, text), name, gameID, limit);
+        }
+    }
+
+    // Games holding every trigram of the text (in any order, so they are checked afterwards), ascending
+    private int[] substringCandidates(String text) {
+        List<IdList> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= text.length(); ++i) {
+            IdList games = grams.get(text.substring(i, i + GRAM));
+            if (games == null) {
+                return new int[0];
+            }
+            lists.add(games);
+        }
+        lists.sort(Comparator.comparingInt(games -> games.size));
+
+        IdList shortest = lists.get(0);
+        int[] result = Arrays.copyOf(shortest.values, shortest.size);
+        int size = result.length;
+        for (int j = 1; j < lists.size() && size > 0; ++j) {
+            size = lists.get(j).retainIn(result, size);
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private BitSet prefixCandidates(String text) {
+        BitSet result = new BitSet();
+        for (IdList games : words.subMap(text, true, text + Character.MAX_VALUE, false).values()) {
+            games.setIn(result);
+        }
+        return result;
+    }
+
+    // Games using, for every query word, that word or one of its corrections
+    private BitSet correctedCandidates(String text) {
+        BitSet result = null;
+        boolean corrected = false;
+        for (String word : text.split(" ")) {
+            List<String> options = words.containsKey(word) ? List.of(word) : corrections(word);
+            if (options.isEmpty()) {
+                return new BitSet();
+            }
+            corrected |= !options.get(0).equals(word);
+
+            BitSet games = new BitSet();
+            for (String option : options) {
+                words.get(option).setIn(games);
+            }
+            if (result == null) {
+                result = games;
+            }
+            else {
+                result.and(games);
+            }
+        }
+        return corrected ? result : new BitSet();
+    }
+
+    /*
+        Vocabulary words within one edit (two from LONG_WORD_LENGTH letters) of the word. An edit
+        spoils at most GRAM of the padded word's trigrams (a swap GRAM + 1), so a correction shares
+        at least the rest of them; only those words are checked with the edit distance.
+    */
+    private List<String> corrections(String word) {
+        if (!correctable(word, FUZZY_MIN_LENGTH)) {
+            return Collections.emptyList();
+        }
+
+        int edits = word.length() < LONG_WORD_LENGTH ? 1 : 2;
+        List<String> queryGrams = wordGrams(word);
+        int threshold = Math.max(1, queryGrams.size() - (GRAM + 1) * edits);
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<String> listed = vocabulary.get(gram);
+            if (listed != null) {
+                for (String candidate : listed) {
+                    shared.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<String> corrections = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            String candidate = entry.getKey();
+            if (entry.getValue() >= threshold &&
+                Math.abs(candidate.length() - word.length()) <= edits &&
+                distance(word, candidate, edits) <= edits) {
+                corrections.add(candidate);
+            }
+        }
+        return corrections;
+    }
+
+
+    // Helpers
+    static String normalize(String name) {
+        StringBuilder text = new StringBuilder(name.length());
+        boolean space = true;
+        for (int i = 0; i < name.length(); ++i) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                text.append(Character.toLowerCase(c));
+                space = false;
+            }
+            else if (!space) {
+                text.append(' ');
+                space = true;
+            }
+        }
+        if (space && text.length() > 0) {
+            text.setLength(text.length() - 1);
+        }
+        return text.toString();
+    }
+
+    // Only words of letters are corrected (numbers and codes are not misspelled the same way)
+    private static boolean correctable(String word, int minLength) {
+        return word.length() >= minLength && word.chars().allMatch(Character::isLetter);
+    }
+
+    // A vocabulary word is padded with two spaces in front, so even short words share their first letter
+    private static List<String> wordGrams(String word) {
+        return grams("  " + word + " ");
+    }
+
+    // Distinct trigrams of the padded text
+    private static List<String> grams(String padded) {
+        List<String> result = new ArrayList<>(padded.length());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i + GRAM <= padded.length(); ++i) {
+            String gram = padded.substring(i, i + GRAM);
+            if (seen.add(gram)) {
+                result.add(gram);
+            }
+        }
+        return result;
+    }
+
+    private static int rank(String name, String text) {
+        if (name.equals(text)) {
+            return 0;
+        }
+        else if (name.startsWith(text)) {
+            return 1;
+        }
+        for (int index = name.indexOf(text, 1); index > 0; index = name.indexOf(text, index + 1)) {
+            if (name.charAt(index - 1) == ' ') {
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    // Keeps the `limit` best matches, with the worst one at the head (only better ones are allocated)
+    private static void offer(PriorityQueue<Match> best, int rank, String name, int gameID, int limit) {
+        if (best.size() < limit) {
+            best.add(new Match(rank, name, gameID));
+        }
+        else if (Match.compare(rank, name, gameID, best.peek()) < 0) {
+            best.poll();
+            best.add(new Match(rank, name, gameID));
+        }
+    }
+
+    // Edit distance counting adjacent swaps as one edit, giving up (returning max + 1) once every prefix is over max
+    private static int distance(String a, String b, int max) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); ++j) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); ++i) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); ++j) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+
+    // One ranked match: rank, then shorter names, then name and ID
+    private static final class Match implements Comparable<Match> {
+        private final int rank;
+        private final String name;
+        private final int gameID;
+
+        private Match(int rank, String name, int gameID) {
+            this.rank = rank;
+            this.name = name;
+            this.gameID = gameID;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            return compare(rank, name, gameID, other);
+        }
+
+        private static int compare(int rank, String name, int gameID, Match other) {
+            if (rank != other.rank) {
+                return Integer.compare(rank, other.rank);
+            }
+            else if (name.length() != other.name.length()) {
+                return Integer.compare(name.length(), other.name.length());
+            }
+            int byName = name.compareTo(other.name);
+            return byName != 0 ? byName : Integer.compare(gameID, other.gameID);
+        }
+    }
+
+
+    // Sorted, growable list of game IDs (IDs mostly arrive in ascending order, so adds append)
+    private static final class IdList {
+        private int[] values = new int[2];
+        private int size = 0;
+
+        private void add(int value) {
+            int index = size > 0 && values[size - 1] < value ? -size - 1 : Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            ++size;
+        }
+
+        private void remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                --size;
+            }
+        }
+
+        // Keeps the first `count` IDs of the sorted array that are also in this list, returns how many remain
+        private int retainIn(int[] IDs, int count) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count && from < size; ++i) {
+                // Gallop to the first value >= IDs[i], then binary search within the last step
+                int step = 1;
+                int to = from;
+                while (to < size && values[to] < IDs[i]) {
+                    from = to + 1;
+                    to += step;
+                    step *= 2;
+                }
+                int index = Arrays.binarySearch(values, from, Math.min(to + 1, size), IDs[i]);
+                if (index >= 0) {
+                    IDs[kept++] = IDs[i];
+                    from = index + 1;
+                }
+                else {
+                    from = -index - 1;
+                }
+            }
+            return kept;
+        }
+
+        private void setIn(BitSet target) {
+            for (int i = 0; i < size; ++i) {
+                target.set(values[i]);
+            }
+        }
+    }
+}
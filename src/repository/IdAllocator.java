@@ -0,0 +1,83 @@
+package repository;
+
+import static misc.Constants.STORAGE;
+import exceptions.IdAllocationException;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Hands out the IDs of new users or games from blocks reserved in storage (see
+    StorageEngine.reserveIDs), so every process sharing the database gets IDs no other one uses,
+    while only one allocation per block costs a round trip. Within a block an ID is a single
+    getAndIncrement; the thread that finds the block used up reserves the next one, and the threads
+    racing it wait for that instead of reserving blocks of their own.
+    The IDs of a block left unused when the process exits are skipped for good.
+    When no block can be reserved the allocation fails: an ID nobody reserved could collide with
+    another process. Only a repository detached from storage (see GameMasterRepository.seed) takes
+    its IDs from the highest ID seen in this process.
+*/
+public final class IdAllocator {
+    // Sequence name and block size
+    private final String sequence;
+    private final int blockSize;
+
+
+    // Highest ID seen by this process (the model's counter, raised by every constructor)
+    private final AtomicInteger seen;
+
+
+    // Current block
+    private volatile Block block = new Block(0, 0);
+
+
+    // Constructors
+    public IdAllocator(String sequence, int blockSize, AtomicInteger seen) {
+        this.sequence = sequence;
+        this.blockSize = blockSize;
+        this.seen = seen;
+    }
+
+
+    // Allocation
+    public int next() {
+        if (GameMasterRepository.isDetached()) {
+            return seen.incrementAndGet();
+        }
+
+        while (true) {
+            Block current = block;
+            int ID = current.next.getAndIncrement();
+            if (ID < current.end) {
+                seen.accumulateAndGet(ID, Math::max);
+                return ID;
+            }
+
+            synchronized (this) {
+                if (block != current) {
+                    continue;
+                }
+
+                try {
+                    int first = STORAGE.reserveIDs(sequence, seen.get() + 1, blockSize);
+                    block = new Block(first, first + blockSize);
+                }
+                catch (SQLException e) {
+                    throw new IdAllocationException("Could not reserve a new " + sequence + " ID, try again later.", e);
+                }
+            }
+        }
+    }
+
+
+    // Helpers
+    private static final class Block {
+        private final AtomicInteger next;
+        private final int end;
+
+        private Block(int first, int end) {
+            this.next = new AtomicInteger(first);
+            this.end = end;
+        }
+    }
+}
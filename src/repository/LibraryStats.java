@@ -0,0 +1,51 @@
+package repository;
+
+/*
+    Immutable, so sessions reading it while another session buys or refunds see either the stats
+    before the change or after it, never a mix.
+*/
+public final class LibraryStats {
+    // Fields
+    private final int games;
+    private final int DLCs;
+    private final double spent;
+
+
+    // Constructors
+    LibraryStats() {
+        this(0, 0, 0);
+    }
+
+    private LibraryStats(int games, int DLCs, double spent) {
+        this.games = games;
+        this.DLCs = DLCs;
+        this.spent = spent;
+    }
+
+
+    // Getters
+    public int getGames() {
+        return games;
+    }
+
+    public int getDLCs() {
+        return DLCs;
+    }
+
+    public double getSpent() {
+        return Math.round(spent * 100) / 100.0;
+    }
+
+    public boolean isEmpty() {
+        return games == 0 && DLCs == 0;
+    }
+
+
+    // Changes
+    LibraryStats add(boolean isDLC, double price, int sign) {
+        if (isDLC) {
+            return new LibraryStats(games, DLCs + sign, spent + sign * price);
+        }
+        return new LibraryStats(games + sign, DLCs, spent + sign * price);
+    }
+}
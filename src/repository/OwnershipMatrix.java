@@ -0,0 +1,320 @@
+package repository;
+
+import models.DLC;
+import models.Game;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/*
+    Bitsets behind the storefront lists ("what can this client still buy / wishlist").
+    Each client has a compressed set of owned and of wishlisted game IDs; the catalog has one
+    bitset per game type plus visible and published ones, and the DLCs of every base game.
+    A storefront list is then type AND visible [AND published] AND-NOT owned [AND-NOT wishlisted]
+    [AND the DLCs of owned base games], all in memory.
+    The per-client sets follow every purchase/wishlist change; the catalog bitsets are rebuilt
+    lazily after games or DLCs change, which is rare next to storefront reads.
+    Storefront queries share a read lock; changes and rebuilds take it alone.
+*/
+final class OwnershipMatrix {
+    // Per-client sets
+    private final Map<Integer, IdSet> owned = new HashMap<>();
+    private final Map<Integer, IdSet> wishlisted = new HashMap<>();
+
+
+    // Catalog bitsets (rebuilt when stale)
+    private final BitSet baseGames = new BitSet();
+    private final BitSet DLCs = new BitSet();
+    private final BitSet visible = new BitSet();
+    private final BitSet published = new BitSet();
+    private final Map<Integer, IdSet> DLCsByBase = new HashMap<>();
+    private volatile boolean stale = true;
+
+
+    // Lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    // Per-client changes
+    void own(int userID, int gameID, boolean owns) {
+        lock.writeLock().lock();
+        try {
+            set(owned, userID, gameID, owns);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void wish(int userID, int gameID, boolean wishes) {
+        lock.writeLock().lock();
+        try {
+            set(wishlisted, userID, gameID, wishes);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void forgetUser(int userID) {
+        lock.writeLock().lock();
+        try {
+            owned.remove(userID);
+            wishlisted.remove(userID);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clearOwned() {
+        lock.writeLock().lock();
+        try {
+            owned.clear();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clearWishlisted() {
+        lock.writeLock().lock();
+        try {
+            wishlisted.clear();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void invalidateCatalog() {
+        lock.writeLock().lock();
+        try {
+            stale = true;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void set(Map<Integer, IdSet> sets, int userID, int gameID, boolean present) {
+        if (present) {
+            sets.computeIfAbsent(userID, key -> new IdSet()).add(gameID);
+            return;
+        }
+
+        IdSet set = sets.get(userID);
+        if (set != null) {
+            set.remove(gameID);
+            if (set.isEmpty()) {
+                sets.remove(userID);
+            }
+        }
+    }
+
+
+    // Storefront queries (game IDs in ascending order)
+    BitSet disowned(int userID, String type, Map<Integer, Game> games, Map<Integer, DLC> DLCMap) {
+        refresh(games, DLCMap);
+        lock.readLock().lock();
+        try {
+            BitSet result = candidates(type);
+            result.and(published);
+            exclude(owned, userID, result);
+            return restrictDLCs(userID, type, result);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    BitSet notInWishlist(int userID, String type, Map<Integer, Game> games, Map<Integer, DLC> DLCMap) {
+        refresh(games, DLCMap);
+        lock.readLock().lock();
+        try {
+            BitSet result = candidates(type);
+            exclude(owned, userID, result);
+            exclude(wishlisted, userID, result);
+            return restrictDLCs(userID, type, result);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A change landing between the refresh and the query only shows up in the next query
+    private void refresh(Map<Integer, Game> games, Map<Integer, DLC> DLCMap) {
+        if (!stale) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (stale) {
+                rebuild(games, DLCMap);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private BitSet candidates(String type) {
+        BitSet result = (BitSet)(type.equals("dlc") ? DLCs : baseGames).clone();
+        result.and(visible);
+        return result;
+    }
+
+    private static void exclude(Map<Integer, IdSet> sets, int userID, BitSet result) {
+        IdSet set = sets.get(userID);
+        if (set != null) {
+            set.clearFrom(result);
+        }
+    }
+
+    // A DLC is only offered to clients who own its base game
+    private BitSet restrictDLCs(int userID, String type, BitSet result) {
+        if (!type.equals("dlc")) {
+            return result;
+        }
+
+        BitSet offered = new BitSet();
+        IdSet library = owned.get(userID);
+        if (library != null) {
+            library.forEach(gameID -> {
+                IdSet extensions = DLCsByBase.get(gameID);
+                if (extensions != null) {
+                    extensions.setIn(offered);
+                }
+            });
+        }
+        result.and(offered);
+        return result;
+    }
+
+    private void rebuild(Map<Integer, Game> games, Map<Integer, DLC> DLCMap) {
+        baseGames.clear();
+        DLCs.clear();
+        visible.clear();
+        published.clear();
+        DLCsByBase.clear();
+
+        for (Game game : games.values()) {
+            int gameID = game.getID();
+            if (game.getType().equals("game")) {
+                baseGames.set(gameID);
+            }
+            if (game.getIsVisible()) {
+                visible.set(gameID);
+            }
+            if (game.getPublished()) {
+                published.set(gameID);
+            }
+        }
+        // Only DLC rows count as DLCs, as in the former JOIN on the dlc table
+        for (DLC dlc : DLCMap.values()) {
+            Game game = games.get(dlc.getID());
+            if (game != null && game.getType().equals("dlc")) {
+                DLCs.set(dlc.getID());
+                DLCsByBase.computeIfAbsent(dlc.getBaseGameID(), key -> new IdSet()).add(dlc.getID());
+            }
+        }
+        stale = false;
+    }
+
+
+    /*
+        Compressed set of game IDs, in the spirit of a Roaring container: a sorted int array
+        while small (most clients own a handful of games), switching to a bitset once it holds
+        more than ARRAY_LIMIT IDs, where the bitset becomes the smaller of the two.
+    */
+    private static final class IdSet {
+        private static final int ARRAY_LIMIT = 4096;
+
+        private int[] values = new int[4];
+        private int size = 0;
+        private BitSet bits = null;
+
+        private void add(int value) {
+            if (bits != null) {
+                bits.set(value);
+                return;
+            }
+
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            if (size == ARRAY_LIMIT) {
+                bits = new BitSet();
+                for (int i = 0; i < size; ++i) {
+                    bits.set(values[i]);
+                }
+                bits.set(value);
+                values = null;
+                return;
+            }
+
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            ++size;
+        }
+
+        private void remove(int value) {
+            if (bits != null) {
+                bits.clear(value);
+                return;
+            }
+
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                --size;
+            }
+        }
+
+        private boolean isEmpty() {
+            return bits != null ? bits.isEmpty() : size == 0;
+        }
+
+        // target AND-NOT this
+        private void clearFrom(BitSet target) {
+            if (bits != null) {
+                target.andNot(bits);
+                return;
+            }
+            for (int i = 0; i < size; ++i) {
+                target.clear(values[i]);
+            }
+        }
+
+        // target OR this
+        private void setIn(BitSet target) {
+            if (bits != null) {
+                target.or(bits);
+                return;
+            }
+            for (int i = 0; i < size; ++i) {
+                target.set(values[i]);
+            }
+        }
+
+        private void forEach(IntConsumer action) {
+            if (bits != null) {
+                bits.stream().forEach(action);
+                return;
+            }
+            for (int i = 0; i < size; ++i) {
+                action.accept(values[i]);
+            }
+        }
+    }
+}
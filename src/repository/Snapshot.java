@@ -0,0 +1,399 @@
+package repository;
+
+import static misc.Constants.SNAPSHOT_ENABLED;
+import static misc.Constants.SNAPSHOT_FOLDER;
+import static misc.Constants.SNAPSHOT_FILE;
+import static misc.Constants.JOURNAL_FILE;
+import models.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/*
+    Local copy of the repository maps, used to skip the full MySQL reload on a warm start.
+        snapshot: MAGIC, VERSION, entity count, then tagged entities
+        journal:  MAGIC, VERSION, then (action, tagged entity) records appended by modifyEntities
+    A checkpoint rewrites the snapshot from the in-memory maps and empties the journal.
+*/
+final class Snapshot {
+    // Format
+    private static final int MAGIC = 0x474D5244;
+    private static final int VERSION = 2;
+
+    private static final byte CLIENT_TAG = 0;
+    private static final byte PROVIDER_TAG = 1;
+    private static final byte ADMIN_TAG = 2;
+    private static final byte CONTRACT_TAG = 3;
+    private static final byte GAME_TAG = 4;
+    private static final byte DLC_TAG = 5;
+    private static final byte PURCHASE_TAG = 6;
+    private static final byte WISHLIST_TAG = 7;
+
+    private static final String[] ACTIONS = { "create", "update", "delete" };
+
+
+    // Files
+    private static final Path snapshotFile = Paths.get(SNAPSHOT_FOLDER, SNAPSHOT_FILE);
+    private static final Path journalFile = Paths.get(SNAPSHOT_FOLDER, JOURNAL_FILE);
+    private static DataOutputStream journal = null;
+
+
+    // Constructors
+    private Snapshot() {}
+
+
+    // Snapshot
+    // Returns null when there is no usable snapshot
+    static List<Object> read() throws IOException {
+        if (!SNAPSHOT_ENABLED || !Files.exists(snapshotFile)) {
+            return null;
+        }
+
+        ByteBuffer in = load(snapshotFile);
+        if (!header(in)) {
+            return null;
+        }
+
+        int count = in.getInt();
+        List<Object> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            entities.add(decode(in));
+        }
+        return entities;
+    }
+
+    static synchronized void checkpoint(Collection<Collection<?>> tables) throws IOException {
+        if (!SNAPSHOT_ENABLED) {
+            return;
+        }
+
+        Files.createDirectories(snapshotFile.getParent());
+        Path temporary = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+
+        int count = 0;
+        for (Collection<?> table : tables) {
+            count += table.size();
+        }
+
+        try (DataOutputStream out = open(temporary, false)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            for (Collection<?> table : tables) {
+                for (Object entity : table) {
+                    encode(out, entity);
+                }
+            }
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        closeJournal();
+        Files.deleteIfExists(journalFile);
+    }
+
+    static synchronized void discard() throws IOException {
+        closeJournal();
+        // Journal first, so a snapshot that cannot be deleted is never left with a journal to replay
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+
+    // Journal
+    static synchronized void append(String action, Object entity) {
+        if (!SNAPSHOT_ENABLED) {
+            return;
+        }
+
+        try {
+            if (journal == null) {
+                Files.createDirectories(journalFile.getParent());
+                boolean empty = !Files.exists(journalFile) || Files.size(journalFile) == 0;
+                journal = open(journalFile, true);
+                if (empty) {
+                    journal.writeInt(MAGIC);
+                    journal.writeInt(VERSION);
+                }
+            }
+
+            journal.writeByte(action(action));
+            encode(journal, entity);
+            journal.flush();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // A record cut short by a crash ends the replay and is cut off the journal
+    static void replay(BiConsumer<String, Object> apply) throws IOException {
+        if (!Files.exists(journalFile) || Files.size(journalFile) == 0) {
+            return;
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(journalFile));
+        if (!header(in)) {
+            throw new IOException("Unreadable journal " + journalFile);
+        }
+
+        int valid = in.position();
+        while (in.hasRemaining()) {
+            String action;
+            Object entity;
+            try {
+                action = ACTIONS[in.get()];
+                entity = decode(in);
+            }
+            catch (BufferUnderflowException e) {
+                break;
+            }
+            apply.accept(action, entity);
+            valid = in.position();
+        }
+
+        if (valid < in.limit()) {
+            try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+    }
+
+    static synchronized void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.close();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+        journal = null;
+    }
+
+
+    // Codec
+    private static void encode(DataOutputStream out, Object entity) throws IOException {
+        if (entity instanceof Client) {
+            Client client = (Client)entity;
+            out.writeByte(CLIENT_TAG);
+            encodeUser(out, client);
+            putString(out, client.getFirstName());
+            putString(out, client.getLastName());
+            putString(out, client.getPhoneNumber());
+        }
+        else if (entity instanceof Provider) {
+            Provider provider = (Provider)entity;
+            out.writeByte(PROVIDER_TAG);
+            encodeUser(out, provider);
+            putString(out, provider.getWebsite());
+            putString(out, provider.getTypeProvider());
+        }
+        else if (entity instanceof Admin) {
+            Admin admin = (Admin)entity;
+            out.writeByte(ADMIN_TAG);
+            encodeUser(out, admin);
+            out.writeDouble(admin.getCutPercentage());
+        }
+        else if (entity instanceof Contract) {
+            Contract contract = (Contract)entity;
+            out.writeByte(CONTRACT_TAG);
+            putInteger(out, contract.getDeveloperID());
+            putInteger(out, contract.getPublisherID());
+            putString(out, contract.getStatus());
+            putDate(out, contract.getStartDate());
+            putDate(out, contract.getEndDate());
+        }
+        else if (entity instanceof Game) {
+            Game game = (Game)entity;
+            out.writeByte(GAME_TAG);
+            putInteger(out, game.getID());
+            putInteger(out, game.getDeveloperID());
+            putInteger(out, game.getPublisherID());
+            putString(out, game.getRawName());
+            putDouble(out, game.getPrice());
+            putDate(out, game.getReleaseDate());
+            putBoolean(out, game.getIsVisible());
+            putString(out, game.getType());
+        }
+        else if (entity instanceof DLC) {
+            DLC dlc = (DLC)entity;
+            out.writeByte(DLC_TAG);
+            putInteger(out, dlc.getID());
+            putInteger(out, dlc.getBaseGameID());
+        }
+        else if (entity instanceof Purchase) {
+            Purchase purchase = (Purchase)entity;
+            out.writeByte(PURCHASE_TAG);
+            putInteger(out, purchase.getGameID());
+            putInteger(out, purchase.getUserID());
+            putDate(out, purchase.getPurchaseDate());
+            putDouble(out, purchase.getPrice());
+        }
+        else if (entity instanceof Wishlist) {
+            Wishlist wishlist = (Wishlist)entity;
+            out.writeByte(WISHLIST_TAG);
+            putInteger(out, wishlist.getGameID());
+            putInteger(out, wishlist.getUserID());
+            putDate(out, wishlist.getAddedDate());
+        }
+        else {
+            throw new IOException("Cannot snapshot " + entity.getClass().getSimpleName());
+        }
+    }
+
+    private static void encodeUser(DataOutputStream out, User user) throws IOException {
+        putInteger(out, user.getID());
+        putString(out, user.getUsername());
+        putString(out, user.getPassword());
+        putString(out, user.getEmail());
+        putBoolean(out, user.getIsBanned());
+        putString(out, user.getType());
+    }
+
+    private static Object decode(ByteBuffer in) throws IOException {
+        byte tag = in.get();
+        switch (tag) {
+            case CLIENT_TAG:
+                return new Client(
+                    getInteger(in), getString(in), getString(in), getString(in), getBoolean(in), getString(in),
+                    getString(in), getString(in), getString(in)
+                );
+            case PROVIDER_TAG:
+                return new Provider(
+                    getInteger(in), getString(in), getString(in), getString(in), getBoolean(in), getString(in),
+                    getString(in), getString(in)
+                );
+            case ADMIN_TAG:
+                return new Admin(
+                    getInteger(in), getString(in), getString(in), getString(in), getBoolean(in), getString(in),
+                    in.getDouble()
+                );
+            case CONTRACT_TAG:
+                return new Contract(getInteger(in), getInteger(in), getString(in), getDate(in), getDate(in));
+            case GAME_TAG:
+                return new Game(
+                    getInteger(in), getInteger(in), getInteger(in), getString(in),
+                    getDouble(in), getDate(in), getBoolean(in), getString(in)
+                );
+            case DLC_TAG:
+                return new DLC(getInteger(in), getInteger(in));
+            case PURCHASE_TAG:
+                return new Purchase(getInteger(in), getInteger(in), getDate(in), getDouble(in));
+            case WISHLIST_TAG:
+                return new Wishlist(getInteger(in), getInteger(in), getDate(in));
+            default:
+                throw new IOException("Unknown snapshot tag " + tag);
+        }
+    }
+
+
+    // Helpers
+    // Read into the heap rather than mapped: a live mapping keeps Windows from replacing or deleting the file
+    private static ByteBuffer load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+            }
+            return buffer.flip();
+        }
+    }
+
+    private static DataOutputStream open(Path file, boolean append) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), append)));
+    }
+
+    private static boolean header(ByteBuffer in) {
+        return in.remaining() >= 8 && in.getInt() == MAGIC && in.getInt() == VERSION;
+    }
+
+    private static byte action(String action) {
+        for (byte i = 0; i < ACTIONS.length; ++i) {
+            if (ACTIONS[i].equals(action)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown action " + action);
+    }
+
+    private static void putString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer getInteger(ByteBuffer in) {
+        return in.get() != 0 ? in.getInt() : null;
+    }
+
+    private static void putDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double getDouble(ByteBuffer in) {
+        return in.get() != 0 ? in.getDouble() : null;
+    }
+
+    // Dates as days since the epoch
+    private static void putDate(DataOutputStream out, LocalDate value) throws IOException {
+        putInteger(out, value == null ? null : (int)value.toEpochDay());
+    }
+
+    private static LocalDate getDate(ByteBuffer in) {
+        Integer value = getInteger(in);
+        return value == null ? null : LocalDate.ofEpochDay(value);
+    }
+
+    private static void putBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private static Boolean getBoolean(ByteBuffer in) {
+        byte value = in.get();
+        return value < 0 ? null : value == 1;
+    }
+}
@@ -0,0 +1,206 @@
+package repository;
+
+import static misc.Constants.STATEMENT_CACHE_SIZE;
+import static misc.Constants.BATCH_SIZE;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+public final class StatementExecutor {
+    // Other members
+    private static final Map<Connection, Map<String, PreparedStatement>> statements = new ConcurrentHashMap<>();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+
+    // Constructor
+    private StatementExecutor() {}
+
+
+    // Getters
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static int getCachedCount() {
+        int count = 0;
+        for (Map<String, PreparedStatement> cache : statements.values()) {
+            count += cache.size();
+        }
+        return count;
+    }
+
+
+    // Execution
+    public static <T> List<T> query(String sql, RowMapper<T> mapper, Object... parameters) throws SQLException {
+        try (Connection connection = GameMasterRepository.getConnection()) {
+            PreparedStatement statement = prepare(connection, sql, parameters);
+            try (ResultSet rs = statement.executeQuery()) {
+                List<T> rows = new ArrayList<>();
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+                return rows;
+            }
+        }
+    }
+
+    public static <T> T queryOne(String sql, RowMapper<T> mapper, Object... parameters) throws SQLException {
+        try (Connection connection = GameMasterRepository.getConnection()) {
+            PreparedStatement statement = prepare(connection, sql, parameters);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? mapper.map(rs) : null;
+            }
+        }
+    }
+
+    public static int update(String sql, Object... parameters) throws SQLException {
+        try (Connection connection = GameMasterRepository.getConnection()) {
+            return prepare(connection, sql, parameters).executeUpdate();
+        }
+    }
+
+    /*
+        Rows are sent in chunks of BATCH_SIZE; with rewriteBatchedStatements enabled on the
+        connection URL the driver turns each chunk of INSERTs into a single multi-row INSERT.
+    */
+    public static int batch(String sql, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        int updated = 0;
+        try (Connection connection = GameMasterRepository.getConnection()) {
+            PreparedStatement statement = prepare(connection, sql, new Object[0]);
+            statement.clearBatch();
+            int pending = 0;
+            for (Object[] row : rows) {
+                bind(statement, row);
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    updated += count(statement.executeBatch());
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                updated += count(statement.executeBatch());
+            }
+        }
+        return updated;
+    }
+
+
+    public static <T> List<Object[]> rows(Collection<T> items, Function<T, Object[]> mapper) {
+        List<Object[]> rows = new ArrayList<>(items.size());
+        for (T item : items) {
+            rows.add(mapper.apply(item));
+        }
+        return rows;
+    }
+
+
+    // Statement cache
+    public static void forget(Connection connection) {
+        Map<String, PreparedStatement> cache = statements.remove(connection);
+        if (cache == null) {
+            return;
+        }
+
+        synchronized (cache) {
+            for (PreparedStatement statement : cache.values()) {
+                close(statement);
+            }
+            cache.clear();
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, Object[] parameters) throws SQLException {
+        Connection physical = connection.unwrap(Connection.class);
+        Map<String, PreparedStatement> cache = statements.computeIfAbsent(physical, key -> newCache());
+
+        PreparedStatement statement;
+        synchronized (cache) {
+            statement = cache.get(sql);
+            if (statement != null && !statement.isClosed()) {
+                hits.incrementAndGet();
+                statement.clearParameters();
+            }
+            else {
+                misses.incrementAndGet();
+                statement = physical.prepareStatement(sql);
+                cache.put(sql, statement);
+            }
+        }
+
+        bind(statement, parameters);
+        return statement;
+    }
+
+    private static void bind(PreparedStatement statement, Object[] parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; ++i) {
+            if (parameters[i] == null) {
+                statement.setNull(i + 1, Types.NULL);
+            }
+            else {
+                statement.setObject(i + 1, parameters[i]);
+            }
+        }
+    }
+
+    private static int count(int[] results) {
+        int updated = 0;
+        for (int result : results) {
+            if (result > 0) {
+                updated += result;
+            }
+            else if (result == PreparedStatement.SUCCESS_NO_INFO) {
+                ++updated;
+            }
+        }
+        return updated;
+    }
+
+    private static Map<String, PreparedStatement> newCache() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > STATEMENT_CACHE_SIZE) {
+                    close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    // Helpers
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,66 @@
+package repository;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+    Write locks of the repository, for sessions changing it concurrently.
+    A change to one row takes the stripe of its key, so changes to the same row are applied (and
+    journaled) in order while changes to other rows go on in parallel. A cascading delete touches
+    rows of several tables, so it takes the exclusive lock and waits for every striped change.
+    Readers take no lock: the maps are concurrent and every index update is atomic per key.
+    Changes must not nest (a striped change never starts another one or a cascade).
+*/
+final class StripedLocks {
+    // Locks
+    private final ReentrantReadWriteLock exclusive = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes;
+
+
+    // Constructors
+    // The stripe count is rounded up to a power of two
+    StripedLocks(int count) {
+        int size = 1;
+        while (size < count) {
+            size <<= 1;
+        }
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; ++i) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+
+    // Locking
+    void write(Object key, Runnable change) {
+        ReentrantLock stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        exclusive.readLock().lock();
+        stripe.lock();
+        try {
+            change.run();
+        }
+        finally {
+            stripe.unlock();
+            exclusive.readLock().unlock();
+        }
+    }
+
+    void writeAll(Runnable change) {
+        exclusive.writeLock().lock();
+        try {
+            change.run();
+        }
+        finally {
+            exclusive.writeLock().unlock();
+        }
+    }
+
+
+    // Helpers
+    // Pair and Integer hashes are poor in their low bits, which pick the stripe
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,80 @@
+package repository;
+
+import static misc.Constants.STORAGE;
+import storage.StorageEngine.Transaction;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class UnitOfWork implements AutoCloseable {
+    // Current unit of work of each thread
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+
+    // Other members
+    private final Transaction transaction;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private int depth = 1;
+    private boolean committed = false;
+
+
+    // Constructors
+    private UnitOfWork(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+
+    // Getters
+    public static UnitOfWork current() {
+        return current.get();
+    }
+
+
+    // Lifecycle
+    /*
+        The storage transaction stays open until close(), so every write the thread makes in between
+        (for MySQL: every statement on the thread's pooled connection) belongs to it.
+        Nested begin() calls join the outer unit of work.
+    */
+    public static UnitOfWork begin() throws SQLException {
+        UnitOfWork work = current.get();
+        if (work != null) {
+            ++work.depth;
+            return work;
+        }
+
+        work = new UnitOfWork(STORAGE.begin());
+        current.set(work);
+        return work;
+    }
+
+    public void afterCommit(Runnable action) {
+        afterCommit.add(action);
+    }
+
+    public void commit() throws SQLException {
+        if (depth > 1) {
+            return;
+        }
+
+        transaction.commit();
+        committed = true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (--depth > 0) {
+            return;
+        }
+
+        current.remove();
+        transaction.close();
+
+        if (committed) {
+            for (Runnable action : afterCommit) {
+                action.run();
+            }
+        }
+    }
+}
@@ -3,8 +3,13 @@ package services;
 import static misc.Constants.AUDIT;
 import static misc.Constants.IO;
 import static misc.Constants.DB;
+import static misc.Constants.RENDER;
+import static misc.Constants.MENU;
+import static misc.Constants.SERVER;
+import exceptions.IdAllocationException;
 import exceptions.InvalidFieldException;
 import exceptions.UniqueFieldException;
+import interfaces.Screen;
 import misc.Heart;
 import misc.Enums.MainMenu;
 import misc.Enums.AuditMenu;
@@ -36,7 +41,7 @@ public final class AppService {
 
 
     // Menu helpers
-    private <T extends User> void loginMenu(Map<Integer, T> users) throws SQLException, InvalidFieldException {
+    private <T extends User> Screen loginMenu(Map<Integer, T> users) throws InvalidFieldException {
         IO.printLogo();
 
         String username = IO.getUserInput("Username: ");
@@ -51,44 +56,50 @@ public final class AppService {
             throw new InvalidFieldException("Password cannot be empty!");
         }
 
-        boolean invalidUsername = true;
-        for (T user : users.values()) {
-            if (user.getUsername().equals(username) && user.getPassword().equals(password)) {
-                if (user.getIsBanned()) {
-                    IO.pauseOutput("You are banned!");
-                    return;
-                }
-                user.menu();
-                return;
-            }
-            else if (user.getUsername().equals(username)) {
-                invalidUsername = false;
-            }
-        }
-        if (invalidUsername) {
+        User user = DB.getUserByUsername(username);
+        if (user == null || !user.getUsername().equals(username) || users.get(user.getID()) != user) {
             throw new InvalidFieldException("Invalid username!");
         }
-        throw new InvalidFieldException("Invalid password!");
+        if (!user.getPassword().equals(password)) {
+            throw new InvalidFieldException("Invalid password!");
+        }
+        if (user.getIsBanned()) {
+            IO.pauseOutput("You are banned!");
+            return Screen.STAY;
+        }
+        return user::menu;
+    }
+
+    private void shutdown() {
+        DB.closeDatabase();
+        AUDIT.shutdown();
+        RENDER.uninstall();
     }
 
-    private void quit() throws SQLException {
-        DB.getConnection().close();
+    private void farewell() {
         IO.clearScreen();
         Heart.INSTANCE.printFullHeart();
+        IO.flush();
+    }
+
+    // One user's visit, on the thread the session is attached to
+    private void session() {
+        MENU.run(this::mainMenu);
+        farewell();
     }
 
 
     // Menus
-    private void loginAdminMenu() throws SQLException, InvalidFieldException {
-        loginMenu(DB.getAdmins());
+    private Screen loginAdminMenu() throws InvalidFieldException {
+        return loginMenu(DB.getAdmins());
     }
 
-    private void loginProviderMenu() throws SQLException, InvalidFieldException {
-        loginMenu(DB.getProviders());
+    private Screen loginProviderMenu() throws InvalidFieldException {
+        return loginMenu(DB.getProviders());
     }
 
-    private void loginClientMenu() throws SQLException, InvalidFieldException {
-        loginMenu(DB.getClients());
+    private Screen loginClientMenu() throws InvalidFieldException {
+        return loginMenu(DB.getClients());
     }
 
     private void registerMenu() {
@@ -102,9 +113,13 @@ public final class AppService {
         catch (SQLException e) {
             e.printStackTrace();
         }
+        catch (IdAllocationException e) {
+            e.getCause().printStackTrace();
+            IO.pauseOutput(e.getMessage());
+        }
     }
 
-    private void showAudit() throws IOException {
+    private Screen showAudit() throws IOException {
         String[] options = {
             "Show actions\n",
             "Show libraries\n",
@@ -113,7 +128,7 @@ public final class AppService {
         AuditMenu option = AuditMenu.values()[IO.getValidInput(options)];
 
         if (option == AuditMenu.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
         if (option == AuditMenu.ACTIONS) {
             AUDIT.showActionsCSV();
@@ -121,10 +136,10 @@ public final class AppService {
         else if (option == AuditMenu.LIBRARIES) {
             AUDIT.showLibrariesCSV();
         }
-        showAudit();
+        return Screen.STAY;
     }
 
-    private void resetAudit() throws IOException {
+    private Screen resetAudit() throws IOException {
         String[] options = {
             "Reset actions\n",
             "Reset libraries\n",
@@ -133,7 +148,7 @@ public final class AppService {
         AuditMenu option = AuditMenu.values()[IO.getValidInput(options)];
 
         if (option == AuditMenu.GO_BACK) {
-            return;
+            return Screen.BACK;
         }
         if (option == AuditMenu.ACTIONS) {
             AUDIT.resetActionsCSV();
@@ -141,10 +156,10 @@ public final class AppService {
         else if (option == AuditMenu.LIBRARIES) {
             AUDIT.resetLibrariesCSV();
         }
-        resetAudit();
+        return Screen.STAY;
     }
 
-    private void mainMenu() throws SQLException, IOException, InvalidFieldException {
+    private Screen mainMenu() throws InvalidFieldException {
         String[] options = {
             "Login as admin\n", 
             "Login as provider\n", 
@@ -157,43 +172,47 @@ public final class AppService {
         MainMenu option = MainMenu.values()[IO.getValidInput(options)];
 
         if (option == MainMenu.QUIT) {
-            quit();
+            return Screen.BACK;
         }
-        else {
-            if (option == MainMenu.LOGIN_ADMIN) {
-                loginAdminMenu();
-            }
-            else if (option == MainMenu.LOGIN_PROVIDER) {
-                loginProviderMenu();
-            }
-            else if (option == MainMenu.LOGIN_CLIENT) {
-                loginClientMenu();
-            }
-            else if (option == MainMenu.REGISTER_CLIENT) {
-                registerMenu();
-            }
-            else if (option == MainMenu.SHOW_AUDIT) {
-                showAudit();
-            }
-            else if (option == MainMenu.RESET_AUDIT) {
-                resetAudit();
-            }
-
-            mainMenu();
+        if (option == MainMenu.LOGIN_ADMIN) {
+            return loginAdminMenu();
+        }
+        else if (option == MainMenu.LOGIN_PROVIDER) {
+            return loginProviderMenu();
+        }
+        else if (option == MainMenu.LOGIN_CLIENT) {
+            return loginClientMenu();
         }
+        else if (option == MainMenu.REGISTER_CLIENT) {
+            registerMenu();
+        }
+        else if (option == MainMenu.SHOW_AUDIT) {
+            return this::showAudit;
+        }
+        else if (option == MainMenu.RESET_AUDIT) {
+            return this::resetAudit;
+        }
+        return Screen.STAY;
     }
 
     public void run() {
+        RENDER.install();
+        DB.loadDatabase();
+        Session.console().attach();
+        session();
+        shutdown();
+    }
+
+    // Server mode: the same menus for every connection on the port, over one shared repository
+    public void serve(int port) {
+        RENDER.install();
+        DB.loadDatabase();
         try {
-            DB.loadDatabase();
-            mainMenu();
+            SERVER.run(port, this::session);
         }
-        catch (SQLException | IOException e) {
+        catch (IOException e) {
             e.printStackTrace();
         }
-        catch (InvalidFieldException e) {
-            IO.pauseOutput(e.getMessage());
-            run();
-        }
+        shutdown();
     }
 }
@@ -5,16 +5,33 @@ import static misc.Constants.ACTIONS_FILE;
 import static misc.Constants.LIBRARIES_FILE;
 import static misc.Constants.DATE_FORMAT;
 import static misc.Constants.TIME_FORMAT;
-import models.Client;
+import static misc.Constants.AUDIT_QUEUE_CAPACITY;
+import static misc.Constants.AUDIT_BATCH_SIZE;
+import static misc.Constants.AUDIT_FLUSH_INTERVAL;
+import static misc.Constants.AUDIT_OVERFLOW;
+import static misc.Constants.DB;
+import misc.Enums.AuditOverflow;
+import repository.LibraryStats;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.sql.SQLException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 public final class AuditService {
     // Singleton instance
@@ -24,10 +41,20 @@ public final class AuditService {
     // Other members
     private static final String actionsFile = LOG_FOLDER + "/" + ACTIONS_FILE;
     private static final String librariesFile = LOG_FOLDER + "/" + LIBRARIES_FILE;
+    private static final String actionsHeader = "Date, Hour, Action";
+    private static final String librariesHeader = "Date, Hour, Username, No. games, No. dlcs, Money spent";
     private static File actions;
     private static File libraries;
 
 
+    // Write-behind members
+    private static final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(AUDIT_QUEUE_CAPACITY);
+    private static final Map<File, FileChannel> channels = new HashMap<>();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static Thread writer = null;
+    private static volatile boolean running = false;
+
+
     // Initialization
     static {
         try {
@@ -38,7 +65,7 @@ public final class AuditService {
                 FileWriter fileWriter = new FileWriter(actions, true);
                 BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
 
-                bufferedWriter.write("Date, Hour, Action");
+                bufferedWriter.write(actionsHeader);
                 bufferedWriter.newLine();
 
                 bufferedWriter.close();
@@ -49,12 +76,18 @@ public final class AuditService {
                 FileWriter fileWriter = new FileWriter(libraries, true);
                 BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
 
-                bufferedWriter.write("Date, Hour, Username, No. games, No. dlcs, Money spent");
+                bufferedWriter.write(librariesHeader);
                 bufferedWriter.newLine();
 
                 bufferedWriter.close();
                 fileWriter.close();
             }
+
+            running = true;
+            writer = new Thread(AuditService::drain, "audit-writer");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(AuditService::shutdown));
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -75,104 +108,271 @@ public final class AuditService {
         return INSTANCE;
     }
 
-    private static String getCurrentDate() {
-        LocalDateTime now = LocalDateTime.now();
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private static String getCurrentDate(LocalDateTime now) {
         return String.format(
-            DATE_FORMAT, 
-            now.getDayOfMonth(), 
-            now.getMonthValue(), 
+            DATE_FORMAT,
+            now.getDayOfMonth(),
+            now.getMonthValue(),
             now.getYear()
         );
     }
 
-    private static String getCurrentTime() {
-        LocalDateTime now = LocalDateTime.now();
+    private static String getCurrentTime(LocalDateTime now) {
         return String.format(
-            TIME_FORMAT, 
-            now.getHour(), 
+            TIME_FORMAT,
+            now.getHour(),
             now.getMinute(),
             now.getSecond()
         );
     }
 
 
-    // Helpers
-    private static void showCSV(File file) throws IOException {
-        java.awt.Desktop.getDesktop().open(file);
-    }
+    // Queue
+    /*
+        Lines follow AUDIT_OVERFLOW when the queue is full; control entries (resets and flush
+        markers) always wait for room, and DROP_OLDEST only ever evicts lines, since losing a marker
+        would stall flush() and losing a reset would leave the file as it was.
+        An entry queued while the service shuts down is written by its producer, since the writer
+        may already have drained the queue and exited.
+    */
+    private static void enqueue(Entry entry) {
+        if (!running) {
+            write(List.of(entry));
+            return;
+        }
+
+        try {
+            if (AUDIT_OVERFLOW == AuditOverflow.BLOCK || entry.isControl()) {
+                if (!put(entry)) {
+                    return;
+                }
+            }
+            else if (AUDIT_OVERFLOW == AuditOverflow.DROP_NEWEST) {
+                if (!queue.offer(entry)) {
+                    dropped.incrementAndGet();
+                }
+            }
+            else {
+                while (!queue.offer(entry)) {
+                    if (!dropOldestLine()) {
+                        if (!put(entry)) {
+                            return;
+                        }
+                        break;
+                    }
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-    private static void resetCSV(File file) throws IOException {
-        file.delete();
+        if (!running) {
+            drainRemaining();
+        }
+    }
 
-        FileWriter fileWriter = new FileWriter(file, false);
-        BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
+    // Waits for room while the writer runs; false when the entry was written directly instead
+    private static boolean put(Entry entry) throws InterruptedException {
+        while (!queue.offer(entry, AUDIT_FLUSH_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (!running) {
+                write(List.of(entry));
+                return false;
+            }
+        }
+        return true;
+    }
 
-        if (file.equals(actions)) {
-            bufferedWriter.write("Date, Hour, Action");
+    private static boolean dropOldestLine() {
+        Iterator<Entry> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (!iterator.next().isControl()) {
+                iterator.remove();
+                return true;
+            }
         }
-        else {
-            bufferedWriter.write("Date, Hour, Username, No. games, No. dlcs, Money spent");
+        return false;
+    }
+
+    private static void drainRemaining() {
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
         }
+    }
 
-        bufferedWriter.newLine();
+    /*
+        The writer blocks for the first entry (at most AUDIT_FLUSH_INTERVAL), then drains whatever
+        else is queued and commits the whole group with one write and one force per file.
+    */
+    private static void drain() {
+        List<Entry> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(AUDIT_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, AUDIT_BATCH_SIZE - 1);
+            }
+            catch (InterruptedException e) {
+                queue.drainTo(batch);
+            }
 
-        bufferedWriter.close();
-        fileWriter.close();
+            write(batch);
+            batch.clear();
+        }
     }
 
-    public static void writeToActionsCSV(String action, String table) {
+    private static synchronized void write(List<Entry> batch) {
+        Map<File, StringBuilder> pending = new HashMap<>();
         try {
-            if (actions == null) {
-                return;
+            for (Entry entry : batch) {
+                if (entry.reset) {
+                    commit(pending);
+                    FileChannel channel = channel(entry.file);
+                    channel.truncate(0);
+                    pending.computeIfAbsent(entry.file, key -> new StringBuilder())
+                           .append(entry.file.equals(actions) ? actionsHeader : librariesHeader)
+                           .append(System.lineSeparator());
+                }
+                else if (entry.line != null) {
+                    pending.computeIfAbsent(entry.file, key -> new StringBuilder())
+                           .append(entry.line)
+                           .append(System.lineSeparator());
+                }
+                if (entry.flushed != null) {
+                    commit(pending);
+                    entry.flushed.countDown();
+                }
             }
+            commit(pending);
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-            FileWriter fileWriter = new FileWriter(actions, true);
-            BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
+    private static void commit(Map<File, StringBuilder> pending) throws IOException {
+        for (Map.Entry<File, StringBuilder> lines : pending.entrySet()) {
+            FileChannel channel = channel(lines.getKey());
+            ByteBuffer buffer = ByteBuffer.wrap(lines.getValue().toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        pending.clear();
+    }
 
-            StringBuilder line = new StringBuilder();
-            line.append(getCurrentDate()).append(", ");
-            line.append(getCurrentTime()).append(", ");
-            line.append(action + " -> " + table);
+    private static FileChannel channel(File file) throws IOException {
+        FileChannel channel = channels.get(file);
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(
+                file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+            );
+            channels.put(file, channel);
+        }
+        return channel;
+    }
 
-            bufferedWriter.write(line.toString());
-            bufferedWriter.newLine();
+    public static void flush() {
+        if (!running) {
+            return;
+        }
 
-            bufferedWriter.close();
-            fileWriter.close();
+        CountDownLatch flushed = new CountDownLatch(1);
+        enqueue(new Entry(null, null, false, flushed));
+        try {
+            flushed.await(AUDIT_FLUSH_INTERVAL * 10, TimeUnit.MILLISECONDS);
         }
-        catch (IOException e) {
-            e.printStackTrace();
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    public static void writeToLibrariesCSV(Integer clientID) {
+    // The writer is not interrupted (that would close its channels mid-write); it exits once the queue is empty
+    public static void shutdown() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
         try {
-            if (libraries == null) {
-                return;
+            writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainRemaining();
+
+        synchronized (AuditService.class) {
+            for (FileChannel channel : channels.values()) {
+                try {
+                    channel.close();
+                }
+                catch (IOException e) {
+                    e.printStackTrace();
+                }
             }
+            channels.clear();
+        }
+    }
 
-            List<String> clientInfo = Client.getInfo(clientID);
-
-            FileWriter fileWriter = new FileWriter(libraries, true);
-            BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
 
-            StringBuilder line = new StringBuilder();
-            line.append(getCurrentDate()).append(", ");
-            line.append(getCurrentTime()).append(", ");
-            line.append(clientInfo.get(0)).append(", ");
-            line.append((clientInfo.get(1).equals("0")) ? "None" : clientInfo.get(1)).append(", ");
-            line.append((clientInfo.get(2).equals("0")) ? "None" : clientInfo.get(2)).append(", ");
-            line.append(clientInfo.get(3) + " RON");
+    // Helpers
+    private static void showCSV(File file) throws IOException {
+        flush();
+        java.awt.Desktop.getDesktop().open(file);
+    }
 
-            bufferedWriter.write(line.toString());
-            bufferedWriter.newLine();
+    private static void resetCSV(File file) {
+        enqueue(new Entry(file, null, true, null));
+        flush();
+    }
 
-            bufferedWriter.close();
-            fileWriter.close();
+    public static void writeToActionsCSV(String action, String table) {
+        if (actions == null) {
+            return;
         }
-        catch (IOException | SQLException e) {
-            e.printStackTrace();
+
+        LocalDateTime now = LocalDateTime.now();
+
+        StringBuilder line = new StringBuilder();
+        line.append(getCurrentDate(now)).append(", ");
+        line.append(getCurrentTime(now)).append(", ");
+        line.append(action + " -> " + table);
+
+        enqueue(new Entry(actions, line.toString(), false, null));
+    }
+
+    public static void writeToLibrariesCSV(Integer clientID) {
+        if (libraries == null) {
+            return;
         }
+
+        LibraryStats stats = DB.getLibraryStats(clientID);
+        LocalDateTime now = LocalDateTime.now();
+
+        StringBuilder line = new StringBuilder();
+        line.append(getCurrentDate(now)).append(", ");
+        line.append(getCurrentTime(now)).append(", ");
+        line.append(DB.getUsers().get(clientID).getUsername()).append(", ");
+        line.append((stats.getGames() == 0) ? "None" : stats.getGames()).append(", ");
+        line.append((stats.getDLCs() == 0) ? "None" : stats.getDLCs()).append(", ");
+        line.append(stats.getSpent() + " RON");
+
+        enqueue(new Entry(libraries, line.toString(), false, null));
     }
 
     public static void showActionsCSV() throws IOException {
@@ -190,4 +390,24 @@ public final class AuditService {
     public static void resetLibrariesCSV() throws IOException {
         resetCSV(libraries);
     }
+
+
+    // Queue entries
+    private static final class Entry {
+        private final File file;
+        private final String line;
+        private final boolean reset;
+        private final CountDownLatch flushed;
+
+        private Entry(File file, String line, boolean reset, CountDownLatch flushed) {
+            this.file = file;
+            this.line = line;
+            this.reset = reset;
+            this.flushed = flushed;
+        }
+
+        private boolean isControl() {
+            return reset || flushed != null;
+        }
+    }
 }
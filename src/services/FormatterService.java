@@ -1,12 +1,25 @@
 package services;
 
-import java.sql.Date;
+import static misc.Constants.DATE_PATTERN;
+import static misc.Constants.DATE_REGEX;
+import exceptions.InvalidFieldException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
 
 public final class FormatterService {
     // Singleton instance
     private static FormatterService INSTANCE = null;
 
 
+    // Date format (models hold LocalDate, formatted only for display)
+    // Strict, so 31.02 is rejected instead of resolved to the last day of the month
+    private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(DATE_PATTERN)
+        .withResolverStyle(ResolverStyle.STRICT);
+
+
     // Constructor
     private FormatterService() {}
 
@@ -21,22 +34,49 @@ public final class FormatterService {
 
 
     // Helpers
-    public static String dateForClass(String date) {
-        String[] dateParts = date.split("-");
-        return dateParts[2] + "." + dateParts[1] + "." + dateParts[0];
+    public static LocalDate parseDate(String date) {
+        return LocalDate.parse(date, dateFormatter);
+    }
+
+    // A date typed by the user, checked for its layout and for being a real day
+    public static LocalDate parseInputDate(String date) throws InvalidFieldException {
+        if (!date.matches(DATE_REGEX)) {
+            throw new InvalidFieldException("Invalid date format!");
+        }
+
+        try {
+            return parseDate(date);
+        }
+        catch (DateTimeParseException e) {
+            throw new InvalidFieldException("Invalid date format!");
+        }
+    }
+
+    public static String formatDate(LocalDate date) {
+        return date == null ? null : dateFormatter.format(date);
     }
 
-    public static java.sql.Date dateForDB(String date) {
-        String[] dateParts = date.split("\\.");
-        String formattedDate = dateParts[2] + "-" + dateParts[1] + "-" + dateParts[0];
-        return java.sql.Date.valueOf(formattedDate);
+    public static java.sql.Date dateForDB(LocalDate date) {
+        return date == null ? null : java.sql.Date.valueOf(date);
+    }
+
+    public static Object valueForDB(String value, String type) {
+        switch (type) {
+            case "date":
+                return dateForDB(parseDate(value));
+            case "boolean":
+                return Boolean.parseBoolean(value);
+            case "double":
+                return Double.parseDouble(value);
+            case "int":
+                return Integer.parseInt(value);
+            default:
+                return value;
+        }
     }
 
-    public static String addOneYear(String date) {
-        String[] dateParts = date.split("\\.");
-        String year = dateParts[2];
-        String nextYear = Integer.toString(Integer.parseInt(year) + 1);
-        return dateParts[0] + "." + dateParts[1] + "." + nextYear;
+    public static LocalDate addOneYear(LocalDate date) {
+        return date.plusYears(1);
     }
 
     public static String promptForField(String field) {
@@ -1,12 +1,11 @@
 package services;
 
 import static misc.Constants.PAUSE_DURATION;
+import static misc.Constants.PAGE_SIZE;
+import static misc.Constants.RENDER;
 import misc.Logo;
 
 import java.util.List;
-import java.util.Scanner;
-import java.io.IOException;
-import java.io.Console;
 
 public class IOService {
     // Singleton instance
@@ -45,50 +44,103 @@ public class IOService {
         return formattedOptions.toString();
     }
 
-    public final static void clearScreen() {
-        try {
-            if (System.getProperty("os.name").contains("Windows")) {
-                new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
-            } 
+    /*
+        Lists longer than PAGE_SIZE are shown one page at a time and only the items on the page
+        are formatted, e.g. the second page of 25 games:
+            [11] Name: ...
+            ...
+            [20] Name: ...
+
+            Page 2/3  [n] Next  [p] Previous  [j] Jump to page  [0] Go back
+            ->
+    */
+    private final static <T> String formatPage(List<T> items, int page, boolean numbered) {
+        StringBuilder formattedPage = new StringBuilder();
+        int from = page * PAGE_SIZE;
+        int to = Math.min(from + PAGE_SIZE, items.size());
+        for (int i = from; i < to; ++i) {
+            if (numbered) {
+                formattedPage.append("[").append(i + 1).append("] ").append(formatOption(items.get(i)));
+            }
             else {
-                new ProcessBuilder("clear").inheritIO().start().waitFor();
+                formattedPage.append(items.get(i)).append('\n');
             }
-        } 
-        catch (final IOException | InterruptedException e) {
-            e.printStackTrace();
         }
+        formattedPage.append("\nPage ").append(page + 1).append("/").append(pageCount(items.size()))
+                     .append("  [n] Next  [p] Previous  [j] Jump to page  [0] Go back\n-> ");
+        return formattedPage.toString();
+    }
+
+    private final static String formatOption(Object item) {
+        return item.toString().replace(" \n", "\n    ");
+    }
+
+    private final static int pageCount(int size) {
+        return (size + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+
+    // The page after a paging command (n, p, j), or -1 if the input is not one
+    private final static int turnPage(String input, int page, int pages) {
+        switch (input) {
+            case "n":
+                return Math.min(page + 1, pages - 1);
+            case "p":
+                return Math.max(page - 1, 0);
+            case "j":
+                String target = getUserInput("Page (1-" + pages + "): ").trim();
+                if (target.matches("\\d{1,9}") && Integer.parseInt(target) >= 1 && Integer.parseInt(target) <= pages) {
+                    return Integer.parseInt(target) - 1;
+                }
+                pauseOutput("Invalid page!");
+                return page;
+            default:
+                return -1;
+        }
+    }
+
+    // Starts a new frame, drawn on the next flush (no child process, only changed lines are redrawn)
+    public final static void clearScreen() {
+        RENDER.clear();
+    }
+
+    public final static void flush() {
+        RENDER.flush();
     }
 
 
-    // Input
+    // Input (from the current session; a closed session throws SessionClosedException)
     public final static int getValidInput(String[] options) {
         String formattedOptions = formatOptions(options);
-        Scanner scanner = new Scanner(System.in);
+        Session session = Session.current();
         while (true) {
             clearScreen();
             System.out.println(Logo.INSTANCE.getLogo() + "\n\n\n< Choose an option >");
             System.out.print(formattedOptions);
-            if (!scanner.hasNextInt()) {
-                pauseOutput("Invalid option!");
-                scanner.next();
+            flush();
+            String input = session.readLine().trim();
+            RENDER.echo(input + "\n");
+            if (input.isEmpty()) {
                 continue;
             }
-            int option = scanner.nextInt();
-            if (option >= 0 && option < options.length) {
-                return option;
+            if (input.matches("\\d{1,9}") && Integer.parseInt(input) < options.length) {
+                return Integer.parseInt(input);
             }
             pauseOutput("Invalid option!");
-            clearScreen();
         }
     }
 
     public final static String getUserInput(String title) {
-        if (title.contains("Password") || title.contains("password")) {
-            return new String(System.console().readPassword(title));
+        flush();
+        Session session = Session.current();
+        if ((title.contains("Password") || title.contains("password")) && session.canHideInput()) {
+            RENDER.echo(title + "\n");
+            return session.readPassword(title);
         }
         System.out.print(title);
-        Scanner scanner = new Scanner(System.in);
-        return scanner.nextLine();
+        flush();
+        String input = session.readLine();
+        RENDER.echo(input + "\n");
+        return input;
     }
 
     public final static void pressAnyKeyToContinue() {
@@ -102,17 +154,45 @@ public class IOService {
             return null;
         }
 
-        String[] options = new String[items.size() + 1];
-        for (T item : items) {
-            options[items.indexOf(item)] = item.toString().replace(" \n", "\n    ");
+        if (items.size() <= PAGE_SIZE) {
+            String[] options = new String[items.size() + 1];
+            for (int i = 0; i < items.size(); ++i) {
+                options[i] = formatOption(items.get(i));
+            }
+            options[items.size()] = "Go back\n";
+
+            int index = getValidInput(options);
+            if (index == 0) {
+                return null;
+            }
+            return items.get(index - 1);
         }
-        options[items.size()] = "Go back\n";
 
-        int index = getValidInput(options);
-        if (index == 0) {
-            return null;
+        // Items are picked by their number on any page, pages are turned with n, p and j
+        int pages = pageCount(items.size());
+        int page = 0;
+        while (true) {
+            clearScreen();
+            System.out.println(Logo.INSTANCE.getLogo() + "\n\n\n< Choose an option >");
+            System.out.print(formatPage(items, page, true));
+            String input = getUserInput("").trim().toLowerCase();
+
+            int nextPage = turnPage(input, page, pages);
+            if (nextPage >= 0) {
+                page = nextPage;
+                continue;
+            }
+            if (input.matches("\\d{1,9}")) {
+                int option = Integer.parseInt(input);
+                if (option == 0) {
+                    return null;
+                }
+                if (option <= items.size()) {
+                    return items.get(option - 1);
+                }
+            }
+            pauseOutput("Invalid option!");
         }
-        return items.get(index - 1);
     }
 
 
@@ -125,6 +205,7 @@ public class IOService {
     public final static void pauseOutput(String message) {
         try {
             System.out.println(message);
+            flush();
             Thread.sleep(PAUSE_DURATION);
             clearScreen();
         }
@@ -140,7 +221,25 @@ public class IOService {
             return;
         }
 
-        items.forEach(item -> System.out.println(item));
-        pressAnyKeyToContinue();
+        if (items.size() <= PAGE_SIZE) {
+            items.forEach(item -> System.out.println(item));
+            pressAnyKeyToContinue();
+            return;
+        }
+
+        // Anything but a paging command goes back
+        int pages = pageCount(items.size());
+        int page = 0;
+        while (true) {
+            printLogo();
+            System.out.print(formatPage(items, page, false));
+            String input = getUserInput("").trim().toLowerCase();
+
+            int nextPage = turnPage(input, page, pages);
+            if (nextPage < 0) {
+                return;
+            }
+            page = nextPage;
+        }
     }
 }
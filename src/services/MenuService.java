@@ -0,0 +1,73 @@
+package services;
+
+import static misc.Constants.IO;
+import exceptions.IdAllocationException;
+import exceptions.InvalidFieldException;
+import exceptions.SessionClosedException;
+import interfaces.Screen;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public final class MenuService {
+    // Singleton instance
+    private static MenuService INSTANCE = null;
+
+
+    // Constructor
+    private MenuService() {}
+
+
+    // Getters
+    public static MenuService getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new MenuService();
+        }
+        return INSTANCE;
+    }
+
+
+    // Menu loop
+    /*
+        Shows screens until the first one goes back or the session is closed. The open screens are
+        kept on a stack on the heap, so the call stack stays the same however long the session runs,
+        and each screen's lists are garbage as soon as it has handled its choice.
+    */
+    public void run(Screen root) {
+        Deque<Screen> screens = new ArrayDeque<>();
+        screens.push(root);
+
+        while (!screens.isEmpty()) {
+            Screen next;
+            try {
+                next = screens.peek().show();
+            }
+            catch (InvalidFieldException e) {
+                IO.pauseOutput(e.getMessage());
+                continue;
+            }
+            // A failed screen goes back, except the first one, which would end the session
+            catch (SQLException | IOException e) {
+                e.printStackTrace();
+                next = screens.size() > 1 ? Screen.BACK : Screen.STAY;
+            }
+            catch (IdAllocationException e) {
+                e.getCause().printStackTrace();
+                IO.pauseOutput(e.getMessage());
+                next = screens.size() > 1 ? Screen.BACK : Screen.STAY;
+            }
+            catch (SessionClosedException e) {
+                return;
+            }
+
+            if (next == Screen.BACK) {
+                screens.pop();
+            }
+            else if (next != Screen.STAY && next != null) {
+                screens.push(next);
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package services;
+
+import org.fusesource.jansi.AnsiConsole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Frame renderer for the terminal, on top of jansi (which also turns on ANSI support on Windows).
+    Once installed, System.out writes into the frame buffer of the current thread's session instead
+    of its terminal (threads outside sessions write to the console): clear() starts a new frame, and
+    flush() (before every read and pause) sends it to the terminal in one write.
+    A new frame is compared with the lines already on the screen and only the changed lines are
+    rewritten, so the logo and the headers shared by the menus are not redrawn.
+    Lines are addressed by their row on the screen, which only holds while nothing has scrolled or
+    wrapped: otherwise the lines from the first change down are rewritten in sequence, or, if the
+    screen may have scrolled, the whole screen is cleared and redrawn.
+*/
+public final class RenderService {
+    // Singleton instance
+    private static RenderService INSTANCE = null;
+
+
+    // ANSI escape sequences
+    private static final String ESCAPE = "\u001B[";
+    private static final String CLEAR_SCREEN = ESCAPE + "H" + ESCAPE + "2J";
+    private static final String CLEAR_LINE = ESCAPE + "K";
+    private static final String CLEAR_BELOW = ESCAPE + "J";
+    private static final String NEW_LINE = "\r\n";
+
+
+    // Terminal size assumed when it cannot be read (rows never are)
+    private static final int SCREEN_ROWS = 24;
+    private static final int SCREEN_COLUMNS = 80;
+
+
+    // State
+    private volatile PrintStream console = null;
+
+
+    // Constructor
+    private RenderService() {}
+
+
+    // Getters
+    public static RenderService getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new RenderService();
+        }
+        return INSTANCE;
+    }
+
+
+    // The console (System.out before installing), or null when not installed
+    public PrintStream getConsole() {
+        return console;
+    }
+
+
+    // Installation
+    public synchronized void install() {
+        if (console != null) {
+            return;
+        }
+
+        AnsiConsole.systemInstall();
+        console = System.out;
+        System.setOut(new PrintStream(new Router(), false, StandardCharsets.UTF_8));
+    }
+
+    public synchronized void uninstall() {
+        if (console == null) {
+            return;
+        }
+
+        flush();
+        System.setOut(console);
+        console = null;
+        AnsiConsole.systemUninstall();
+    }
+
+
+    // Frames of the current session
+    public void clear() {
+        Frame frame = frame();
+        if (frame == null) {
+            System.out.print(CLEAR_SCREEN);
+            System.out.flush();
+            return;
+        }
+        frame.clear();
+    }
+
+    public void flush() {
+        Frame frame = frame();
+        if (frame == null) {
+            System.out.flush();
+            return;
+        }
+        frame.flush();
+    }
+
+    // Text the terminal echoed while reading input (it is on the screen without being written)
+    public void echo(String text) {
+        Frame frame = frame();
+        if (frame != null) {
+            frame.echo(text);
+        }
+    }
+
+    private Frame frame() {
+        Session session = Session.attached();
+        return getConsole() == null || session == null ? null : session.getFrame();
+    }
+
+
+    // System.out once installed: the frame of the current thread's session, or the console
+    private final class Router extends OutputStream {
+        @Override
+        public void write(int b) {
+            Session session = Session.attached();
+            if (session != null) {
+                session.getFrame().buffer.write(b);
+            }
+            else {
+                getConsole().write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            Session session = Session.attached();
+            if (session != null) {
+                session.getFrame().buffer.write(bytes, offset, length);
+            }
+            else {
+                getConsole().write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (Session.attached() == null) {
+                getConsole().flush();
+            }
+        }
+    }
+
+
+    // Screen of one terminal: the frame being written and the lines already on the screen
+    public static final class Frame {
+        private final PrintStream terminal;
+        private final boolean console;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private boolean newFrame = false;
+        private List<String> screen = null;
+
+        // The console's width is read from it, remote terminals are assumed to be SCREEN_COLUMNS wide
+        public Frame(PrintStream terminal, boolean console) {
+            this.terminal = terminal;
+            this.console = console;
+        }
+
+        private synchronized void clear() {
+            // Whatever was written since the last flush would only have flashed before being cleared
+            System.out.flush();
+            buffer.reset();
+            newFrame = true;
+        }
+
+        private synchronized void flush() {
+            System.out.flush();
+            String text = buffer.toString(StandardCharsets.UTF_8).replace("\r", "");
+            buffer.reset();
+
+            if (newFrame || screen == null) {
+                terminal.print(render(lines(text)));
+                newFrame = false;
+            }
+            else if (!text.isEmpty()) {
+                terminal.print(text.replace("\n", NEW_LINE));
+                append(text);
+            }
+            terminal.flush();
+        }
+
+        private synchronized void echo(String text) {
+            if (screen != null) {
+                append(text.replace("\r", ""));
+            }
+        }
+
+        private int columns() {
+            return console && AnsiConsole.getTerminalWidth() > 0 ? AnsiConsole.getTerminalWidth() : SCREEN_COLUMNS;
+        }
+
+        private String render(List<String> lines) {
+            StringBuilder output = new StringBuilder();
+            int width = columns();
+
+            if (screen != null && rows(screen, width) <= SCREEN_ROWS && rows(lines, width) <= SCREEN_ROWS &&
+                !wraps(screen, width) && !wraps(lines, width)) {
+                for (int row = 0; row < lines.size(); ++row) {
+                    if (row >= screen.size() || !lines.get(row).equals(screen.get(row))) {
+                        moveTo(output, row, 0).append(lines.get(row)).append(CLEAR_LINE);
+                    }
+                }
+                if (lines.size() < screen.size()) {
+                    moveTo(output, lines.size(), 0).append(CLEAR_BELOW);
+                }
+                String last = lines.get(lines.size() - 1);
+                moveTo(output, lines.size() - 1, width(last));
+            }
+            else {
+                int first = 0;
+                while (screen != null && first < lines.size() - 1 && first < screen.size() - 1 &&
+                       lines.get(first).equals(screen.get(first))) {
+                    ++first;
+                }
+                int row = rows(lines.subList(0, first), width);
+                if (screen != null && rows(screen, width) <= SCREEN_ROWS && row < SCREEN_ROWS) {
+                    moveTo(output, row, 0).append(CLEAR_BELOW);
+                }
+                else {
+                    first = 0;
+                    output.append(CLEAR_SCREEN);
+                }
+                output.append(String.join(NEW_LINE, lines.subList(first, lines.size())));
+            }
+
+            screen = lines;
+            return output.toString();
+        }
+
+        private void append(String text) {
+            List<String> added = lines(text);
+            int last = screen.size() - 1;
+            screen.set(last, screen.get(last) + added.get(0));
+            screen.addAll(added.subList(1, added.size()));
+        }
+    }
+
+
+    // Helpers
+    // Lines of the text; the last one holds the cursor and may be empty
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int end = text.indexOf('\n'); end >= 0; end = text.indexOf('\n', start)) {
+            lines.add(text.substring(start, end));
+            start = end + 1;
+        }
+        lines.add(text.substring(start));
+        return lines;
+    }
+
+    private static StringBuilder moveTo(StringBuilder output, int row, int column) {
+        return output.append(ESCAPE).append(row + 1).append(';').append(column + 1).append('H');
+    }
+
+    private static int rows(List<String> lines, int width) {
+        int rows = 0;
+        for (String line : lines) {
+            rows += Math.max(1, (width(line) + width - 1) / width);
+        }
+        return rows;
+    }
+
+    private static boolean wraps(List<String> lines, int width) {
+        for (String line : lines) {
+            if (width(line) >= width) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Columns taken by the line on the screen (escape sequences take none, tabs go to the next stop)
+    private static int width(String line) {
+        int columns = 0;
+        for (int i = 0; i < line.length(); ++i) {
+            char c = line.charAt(i);
+            if (c == '\u001B' && i + 1 < line.length() && line.charAt(i + 1) == '[') {
+                i += 2;
+                while (i < line.length() && (line.charAt(i) < '@' || line.charAt(i) > '~')) {
+                    ++i;
+                }
+            }
+            else if (c == '\t') {
+                columns += 8 - columns % 8;
+            }
+            else if (!Character.isLowSurrogate(c)) {
+                ++columns;
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,148 @@
+package services;
+
+import static misc.Constants.MAX_SESSIONS;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Serves the menus to many terminals at once over plain TCP (telnet or nc, in line mode).
+    Every connection gets its own session on its own thread, and all of them share the process:
+    one repository, one connection pool and one audit log.
+    Sessions spend nearly all their time blocked on their sockets, so on JDK 21 or later each one
+    runs on a virtual thread of its own. The code still compiles for JDK 17 (scripts/build.bat sets
+    no --release), where the sessions fall back to a cached pool of platform threads.
+    The server runs until "stop" is typed on the console or the console input ends; stopping
+    closes the open connections, which ends their sessions as if the users had left.
+*/
+public final class ServerService {
+    // Singleton instance
+    private static ServerService INSTANCE = null;
+
+
+    // Time given to the sessions to finish once their connections are closed
+    private static final long STOP_TIMEOUT = 5;
+
+
+    // State
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+
+    // Constructor
+    private ServerService() {}
+
+
+    // Getters
+    public static ServerService getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new ServerService();
+        }
+        return INSTANCE;
+    }
+
+
+    // Server
+    // Runs body on a new thread with the session attached for every connection, until stopped
+    public void run(int port, Runnable body) throws IOException {
+        ExecutorService threads = sessionThreads();
+
+        try (ServerSocket server = new ServerSocket(port)) {
+            Thread acceptor = new Thread(() -> accept(server, threads, body), "session-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            System.out.println("Serving on port " + server.getLocalPort() + ", type \"stop\" to stop.");
+
+            BufferedReader console = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = console.readLine()) != null && !line.trim().equals("stop")) {
+                System.out.println(sessions.size() + " open session(s).");
+            }
+        }
+        finally {
+            sessions.forEach(Session::close);
+            threads.shutdown();
+            try {
+                threads.awaitTermination(STOP_TIMEOUT, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Looked up reflectively, as Executors.newVirtualThreadPerTaskExecutor only exists from JDK 21
+    private static ExecutorService sessionThreads() {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void accept(ServerSocket server, ExecutorService threads, Runnable body) {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            }
+            catch (SocketException e) {
+                return;
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+                continue;
+            }
+
+            try {
+                PrintStream terminal = new PrintStream(socket.getOutputStream(), false, StandardCharsets.UTF_8);
+                if (sessions.size() >= MAX_SESSIONS) {
+                    terminal.print("Too many open sessions, try again later.\r\n");
+                    terminal.flush();
+                    socket.close();
+                    continue;
+                }
+
+                Session session = Session.remote(socket.getInputStream(), terminal, socket);
+                sessions.add(session);
+                threads.execute(() -> serve(session, body));
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void serve(Session session, Runnable body) {
+        Thread.currentThread().setName("session-" + sessionCount.incrementAndGet());
+        session.attach();
+        try {
+            body.run();
+        }
+        catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        finally {
+            Session.detach();
+            sessions.remove(session);
+            session.close();
+        }
+    }
+}
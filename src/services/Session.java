@@ -0,0 +1,146 @@
+package services;
+
+import static misc.Constants.RENDER;
+import exceptions.SessionClosedException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/*
+    One user at one terminal: the console, or a connection to the server.
+    A session is attached to the thread running its menus, and everything per user goes through it:
+    input is read from its reader, System.out goes to its frame (see RenderService) and the menus
+    keep their filter and sorting choices here rather than in the shared user objects.
+    Threads without an attached session read from the console.
+*/
+public final class Session {
+    // Session of the current thread
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+    private static Session console = null;
+
+
+    // IO
+    private final BufferedReader input;
+    private final RenderService.Frame frame;
+    private final Closeable connection;
+    private final boolean isConsole;
+
+
+    // Menu state
+    private int filterIndex = 0;
+    private int sortIndex = 0;
+
+
+    // Constructors
+    private Session(InputStream input, PrintStream terminal, Closeable connection, boolean isConsole) {
+        this.input = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.frame = new RenderService.Frame(terminal, isConsole);
+        this.connection = connection;
+        this.isConsole = isConsole;
+    }
+
+    public static Session remote(InputStream input, PrintStream terminal, Closeable connection) {
+        return new Session(input, terminal, connection, false);
+    }
+
+
+    // Getters
+    public static synchronized Session console() {
+        if (console == null) {
+            PrintStream terminal = RENDER.getConsole() != null ? RENDER.getConsole() : System.out;
+            console = new Session(System.in, terminal, null, true);
+        }
+        return console;
+    }
+
+    // The attached session, or the console
+    public static Session current() {
+        Session session = CURRENT.get();
+        return session != null ? session : console();
+    }
+
+    static Session attached() {
+        return CURRENT.get();
+    }
+
+    RenderService.Frame getFrame() {
+        return frame;
+    }
+
+    public int getFilterIndex() {
+        return filterIndex;
+    }
+
+    public int getSortIndex() {
+        return sortIndex;
+    }
+
+
+    // Setters
+    public void setFilterIndex(int filterIndex) {
+        this.filterIndex = filterIndex;
+    }
+
+    public void setSortIndex(int sortIndex) {
+        this.sortIndex = sortIndex;
+    }
+
+
+    // Threads
+    public void attach() {
+        CURRENT.set(this);
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+
+    // Input
+    // Throws SessionClosedException once the input has ended (end of file or a closed connection)
+    public String readLine() {
+        try {
+            String line = input.readLine();
+            if (line == null) {
+                throw new SessionClosedException("The input has ended.");
+            }
+            return line;
+        }
+        catch (IOException e) {
+            throw new SessionClosedException(e.getMessage());
+        }
+    }
+
+    // Only the console can read without echoing, elsewhere passwords are read as lines
+    public boolean canHideInput() {
+        return isConsole && System.console() != null;
+    }
+
+    public String readPassword(String title) {
+        char[] password = System.console().readPassword(title);
+        if (password == null) {
+            throw new SessionClosedException("The input has ended.");
+        }
+        return new String(password);
+    }
+
+
+    // Closing
+    public void close() {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            connection.close();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
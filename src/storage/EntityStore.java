@@ -0,0 +1,19 @@
+package storage;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+
+public interface EntityStore<K, T> {
+    // A concurrent map, handed to the repository as is
+    public Map<K, T> loadAll() throws SQLException;
+    public T find(K key) throws SQLException;
+    public int count() throws SQLException;
+    public int insert(T entity) throws SQLException;
+    public int insertAll(Collection<T> entities) throws SQLException;
+    public int update(T entity) throws SQLException;
+    public int update(K key, String column, Object value) throws SQLException;
+    // Deleting an entity also deletes (or detaches) every row that references it
+    public int delete(T entity) throws SQLException;
+    public int deleteAll(Collection<T> entities) throws SQLException;
+}
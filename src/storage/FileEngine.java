@@ -0,0 +1,208 @@
+package storage;
+
+import models.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang3.tuple.Pair;
+
+/*
+    Embedded engine for single-node deployments and benchmarks: every entity lives in its own
+    memory-mapped file (see FileStore) and needs no database server. All stores share the engine
+    as their lock. Outside a transaction every write is forced to disk; inside one the stores are
+    forced on commit and the writes are undone on rollback.
+*/
+public final class FileEngine implements StorageEngine {
+    // Stores
+    private final FileStore<Integer, Client> clients;
+    private final FileStore<Integer, Provider> providers;
+    private final FileStore<Integer, Admin> admins;
+    private final FileStore<Pair<Integer, Integer>, Contract> contracts;
+    private final FileStore<Integer, Game> games;
+    private final FileStore<Integer, DLC> DLCs;
+    private final FileStore<Pair<Integer, Integer>, Purchase> purchases;
+    private final FileStore<Pair<Integer, Integer>, Wishlist> wishlists;
+
+
+    // Transactions
+    private final ThreadLocal<FileTransaction> transactions = new ThreadLocal<>();
+
+
+    // Next free ID of every sequence
+    private final Map<String, Integer> sequences = new HashMap<>();
+
+
+    // Constructors
+    public FileEngine(String folder) {
+        Path path = Paths.get(folder);
+
+        purchases = new FileStore<>(this, Purchase.SCHEMA, path);
+        wishlists = new FileStore<>(this, Wishlist.SCHEMA, path);
+        contracts = new FileStore<>(this, Contract.SCHEMA, path);
+        DLCs = new FileStore<>(this, DLC.SCHEMA, path);
+        admins = new FileStore<>(this, Admin.SCHEMA, path);
+
+        clients = new FileStore<>(this, Client.SCHEMA, path).cascade(client -> {
+            purchases.deleteWhere("user_id", client.getID());
+            wishlists.deleteWhere("user_id", client.getID());
+        });
+
+        games = new FileStore<>(this, Game.SCHEMA, path).cascade(game -> {
+            purchases.deleteWhere("game_id", game.getID());
+            wishlists.deleteWhere("game_id", game.getID());
+            DLCs.deleteWhere("game_id", game.getID());
+            DLCs.deleteWhere("base_game_id", game.getID());
+        });
+
+        providers = new FileStore<>(this, Provider.SCHEMA, path).cascade(provider -> {
+            contracts.deleteWhere("developer_id", provider.getID());
+            contracts.deleteWhere("publisher_id", provider.getID());
+            games.deleteWhere("developer_id", provider.getID());
+            int developer = games.indexOf("developer_id");
+            games.updateWhere("publisher_id", provider.getID(), "publisher_id", row -> row[developer]);
+        });
+    }
+
+
+    // Getters
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public EntityStore<Integer, Client> getClients() {
+        return clients;
+    }
+
+    @Override
+    public EntityStore<Integer, Provider> getProviders() {
+        return providers;
+    }
+
+    @Override
+    public EntityStore<Integer, Admin> getAdmins() {
+        return admins;
+    }
+
+    @Override
+    public EntityStore<Pair<Integer, Integer>, Contract> getContracts() {
+        return contracts;
+    }
+
+    @Override
+    public EntityStore<Integer, Game> getGames() {
+        return games;
+    }
+
+    @Override
+    public EntityStore<Integer, DLC> getDLCs() {
+        return DLCs;
+    }
+
+    @Override
+    public EntityStore<Pair<Integer, Integer>, Purchase> getPurchases() {
+        return purchases;
+    }
+
+    @Override
+    public EntityStore<Pair<Integer, Integer>, Wishlist> getWishlists() {
+        return wishlists;
+    }
+
+    private List<FileStore<?, ?>> getStores() {
+        return List.of(clients, providers, admins, contracts, games, DLCs, purchases, wishlists);
+    }
+
+
+    // Transactions
+    @Override
+    public Transaction begin() throws SQLException {
+        if (transactions.get() != null) {
+            throw new SQLException("A transaction is already open on this thread");
+        }
+
+        FileTransaction transaction = new FileTransaction();
+        transactions.set(transaction);
+        return transaction;
+    }
+
+    // Called by the stores (holding the engine lock) after every change
+    void undo(Runnable action) {
+        FileTransaction transaction = transactions.get();
+        if (transaction != null) {
+            transaction.undo.add(action);
+        }
+    }
+
+    void written(FileStore<?, ?> store) {
+        FileTransaction transaction = transactions.get();
+        if (transaction == null) {
+            store.force();
+        }
+        else {
+            transaction.dirty.add(store);
+        }
+    }
+
+    // ID sequences
+    /*
+        The engine serves a single process, and the stores hold every ID it ever handed out, so the
+        sequences live in memory: after a restart the floor (above every loaded ID) takes over.
+    */
+    @Override
+    public synchronized int reserveIDs(String sequence, int floor, int count) {
+        int first = Math.max(sequences.getOrDefault(sequence, floor), floor);
+        sequences.put(sequence, first + count);
+        return first;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (FileStore<?, ?> store : getStores()) {
+            store.close();
+        }
+    }
+
+
+    // Helpers
+    private final class FileTransaction implements Transaction {
+        private final List<Runnable> undo = new ArrayList<>();
+        private final Set<FileStore<?, ?>> dirty = new LinkedHashSet<>();
+        private boolean committed = false;
+
+        @Override
+        public void commit() {
+            synchronized (FileEngine.this) {
+                for (FileStore<?, ?> store : dirty) {
+                    store.force();
+                }
+            }
+            committed = true;
+        }
+
+        @Override
+        public void close() {
+            transactions.remove();
+            if (committed) {
+                return;
+            }
+
+            synchronized (FileEngine.this) {
+                for (int i = undo.size() - 1; i >= 0; --i) {
+                    undo.get(i).run();
+                }
+                for (FileStore<?, ?> store : dirty) {
+                    store.force();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+    One memory-mapped file per entity:
+        MAGIC, VERSION, then records of (int payload length, byte live flag, payload)
+    Writes only ever append a record or clear the live flag of an old one, and the primary-key
+    index (key -> record offset) is rebuilt by scanning the file when it is opened. Dead records
+    are squeezed out on open once they take up more than half of the file.
+*/
+final class FileStore<K, T> implements EntityStore<K, T> {
+    // Format
+    private static final int MAGIC = 0x474D4653;
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int RECORD_HEADER = 5;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte INTEGER_VALUE = 1;
+    private static final byte DOUBLE_VALUE = 2;
+    private static final byte BOOLEAN_VALUE = 3;
+    private static final byte STRING_VALUE = 4;
+    private static final byte DATE_VALUE = 5;
+
+
+    // Fields
+    private final FileEngine engine;
+    private final Schema<K, T> schema;
+    private final Path file;
+    private final Map<K, Integer> index = new HashMap<>();
+    private FileChannel channel = null;
+    private MappedByteBuffer buffer = null;
+    private int end = HEADER;
+    private int garbage = 0;
+    private boolean compacted = false;
+    private Cascade<T> cascade = entity -> {};
+
+
+    // Constructors
+    FileStore(FileEngine engine, Schema<K, T> schema, Path folder) {
+        this.engine = engine;
+        this.schema = schema;
+        this.file = folder.resolve(schema.getName() + ".db");
+    }
+
+    FileStore<K, T> cascade(Cascade<T> cascade) {
+        this.cascade = cascade;
+        return this;
+    }
+
+
+    // Reads
+    @Override
+    public Map<K, T> loadAll() throws SQLException {
+        synchronized (engine) {
+            open();
+            Map<K, T> entities = new ConcurrentHashMap<>();
+            for (Map.Entry<K, Integer> entry : index.entrySet()) {
+                entities.put(entry.getKey(), schema.fromRow(readRow(entry.getValue())));
+            }
+            return entities;
+        }
+    }
+
+    @Override
+    public T find(K key) throws SQLException {
+        synchronized (engine) {
+            open();
+            Integer offset = index.get(key);
+            return offset == null ? null : schema.fromRow(readRow(offset));
+        }
+    }
+
+    @Override
+    public int count() throws SQLException {
+        synchronized (engine) {
+            open();
+            return index.size();
+        }
+    }
+
+    int indexOf(String column) {
+        return schema.indexOf(column);
+    }
+
+
+    // Writes
+    @Override
+    public int insert(T entity) throws SQLException {
+        synchronized (engine) {
+            open();
+            K key = schema.keyOf(entity);
+            if (index.containsKey(key)) {
+                throw new SQLException("Duplicate key " + key + " for " + schema.getName());
+            }
+
+            append(key, schema.toRow(entity));
+            engine.written(this);
+            return 1;
+        }
+    }
+
+    @Override
+    public int insertAll(Collection<T> entities) throws SQLException {
+        synchronized (engine) {
+            open();
+            for (T entity : entities) {
+                K key = schema.keyOf(entity);
+                if (index.containsKey(key)) {
+                    throw new SQLException("Duplicate key " + key + " for " + schema.getName());
+                }
+                append(key, schema.toRow(entity));
+            }
+            engine.written(this);
+            return entities.size();
+        }
+    }
+
+    @Override
+    public int update(T entity) throws SQLException {
+        synchronized (engine) {
+            open();
+            K key = schema.keyOf(entity);
+            Integer offset = index.get(key);
+            if (offset == null) {
+                return 0;
+            }
+
+            kill(key, offset);
+            append(key, schema.toRow(entity));
+            engine.written(this);
+            return 1;
+        }
+    }
+
+    @Override
+    public int update(K key, String column, Object value) throws SQLException {
+        int columnIndex = schema.indexOf(column);
+        if (columnIndex < 0 || Arrays.asList(schema.getKey()).contains(column)) {
+            throw new SQLException("Cannot update column " + column + " of " + schema.getName());
+        }
+
+        synchronized (engine) {
+            open();
+            Integer offset = index.get(key);
+            if (offset == null) {
+                return 0;
+            }
+
+            Object[] row = readRow(offset);
+            row[columnIndex] = value;
+            kill(key, offset);
+            append(key, row);
+            engine.written(this);
+            return 1;
+        }
+    }
+
+    @Override
+    public int delete(T entity) throws SQLException {
+        synchronized (engine) {
+            open();
+            K key = schema.keyOf(entity);
+            Integer offset = index.get(key);
+            if (offset == null) {
+                return 0;
+            }
+
+            cascade.apply(entity);
+            kill(key, offset);
+            index.remove(key);
+            engine.written(this);
+            return 1;
+        }
+    }
+
+    @Override
+    public int deleteAll(Collection<T> entities) throws SQLException {
+        synchronized (engine) {
+            int response = 0;
+            for (T entity : entities) {
+                response += delete(entity);
+            }
+            return response;
+        }
+    }
+
+    // Scans the whole store; only used by the cascades
+    int deleteWhere(String column, Object value) throws SQLException {
+        synchronized (engine) {
+            int response = 0;
+            for (Object[] row : select(column, value)) {
+                response += delete(schema.fromRow(row));
+            }
+            return response;
+        }
+    }
+
+    int updateWhere(String column, Object value, String target, Function<Object[], Object> newValue) throws SQLException {
+        synchronized (engine) {
+            int response = 0;
+            int targetIndex = schema.indexOf(target);
+            for (Object[] row : select(column, value)) {
+                row[targetIndex] = newValue.apply(row);
+                response += update(schema.fromRow(row));
+            }
+            return response;
+        }
+    }
+
+
+    // Opening and closing
+    private void open() throws SQLException {
+        if (buffer != null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_CAPACITY));
+
+            if (size < HEADER) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+            }
+            else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new SQLException(file + " is not a " + schema.getName() + " store");
+            }
+
+            scan();
+        }
+        catch (IOException e) {
+            throw new SQLException("Cannot open " + file, e);
+        }
+
+        if (!compacted && garbage > INITIAL_CAPACITY && garbage > end / 2) {
+            compact();
+        }
+    }
+
+    private void scan() {
+        index.clear();
+        garbage = 0;
+
+        int offset = HEADER;
+        while (offset + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER + length > buffer.capacity()) {
+                break;
+            }
+
+            if (buffer.get(offset + 4) == 1) {
+                index.put(schema.keyOf(schema.fromRow(readRow(offset))), offset);
+            }
+            else {
+                garbage += RECORD_HEADER + length;
+            }
+            offset += RECORD_HEADER + length;
+        }
+        end = offset;
+    }
+
+    /*
+        The live records are copied into a fresh file which then replaces the old one. Where the
+        old file cannot be replaced while it is mapped (Windows), the copy is dropped and the store
+        keeps its dead records until the next open.
+    */
+    private void compact() throws SQLException {
+        compacted = true;
+        Path copy = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            try (FileChannel out = FileChannel.open(copy, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                out.write(header);
+                for (int offset : index.values()) {
+                    ByteBuffer record = buffer.duplicate();
+                    record.position(offset).limit(offset + RECORD_HEADER + buffer.getInt(offset));
+                    out.write(record);
+                }
+                out.force(true);
+            }
+
+            close();
+            Files.move(copy, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            try {
+                Files.deleteIfExists(copy);
+            }
+            catch (IOException ignored) {
+            }
+        }
+
+        close();
+        open();
+    }
+
+    void force() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    void close() {
+        if (channel == null) {
+            return;
+        }
+
+        force();
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+        buffer = null;
+        index.clear();
+    }
+
+
+    // Records
+    private void append(K key, Object[] row) throws SQLException {
+        byte[] payload = encode(row);
+        int offset = end;
+        reserve(RECORD_HEADER + payload.length);
+
+        buffer.putInt(offset, payload.length);
+        buffer.put(offset + 4, (byte)1);
+        buffer.put(offset + RECORD_HEADER, payload);
+        end += RECORD_HEADER + payload.length;
+
+        Integer previous = index.put(key, offset);
+        engine.undo(() -> {
+            buffer.put(offset + 4, (byte)0);
+            garbage += RECORD_HEADER + payload.length;
+            if (previous == null) {
+                index.remove(key);
+            }
+            else {
+                index.put(key, previous);
+            }
+        });
+    }
+
+    private void kill(K key, int offset) {
+        buffer.put(offset + 4, (byte)0);
+        garbage += RECORD_HEADER + buffer.getInt(offset);
+        engine.undo(() -> {
+            buffer.put(offset + 4, (byte)1);
+            garbage -= RECORD_HEADER + buffer.getInt(offset);
+            index.put(key, offset);
+        });
+    }
+
+    private void reserve(int bytes) throws SQLException {
+        if (end + bytes <= buffer.capacity()) {
+            return;
+        }
+
+        long capacity = Math.max(2L * buffer.capacity(), (long)end + bytes);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new SQLException(file + " is full");
+        }
+
+        try {
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        catch (IOException e) {
+            throw new SQLException("Cannot grow " + file, e);
+        }
+    }
+
+    private List<Object[]> select(String column, Object value) throws SQLException {
+        open();
+        int columnIndex = schema.indexOf(column);
+        List<Object[]> rows = new ArrayList<>();
+        for (int offset : index.values()) {
+            Object[] row = readRow(offset);
+            if (value.equals(row[columnIndex])) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+
+    // Row codec
+    private Object[] readRow(int offset) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset + RECORD_HEADER);
+
+        Object[] row = new Object[schema.getColumns().size()];
+        for (int i = 0; i < row.length; ++i) {
+            byte tag = in.get();
+            switch (tag) {
+                case INTEGER_VALUE:
+                    row[i] = in.getInt();
+                    break;
+                case DOUBLE_VALUE:
+                    row[i] = in.getDouble();
+                    break;
+                case BOOLEAN_VALUE:
+                    row[i] = in.get() != 0;
+                    break;
+                case STRING_VALUE:
+                    byte[] bytes = new byte[in.getInt()];
+                    in.get(bytes);
+                    row[i] = new String(bytes, StandardCharsets.UTF_8);
+                    break;
+                case DATE_VALUE:
+                    row[i] = java.sql.Date.valueOf(LocalDate.ofEpochDay(in.getInt()));
+                    break;
+                default:
+                    row[i] = null;
+                    break;
+            }
+        }
+        return row;
+    }
+
+    private static byte[] encode(Object[] row) throws SQLException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Object value : row) {
+                if (value == null) {
+                    out.writeByte(NULL_VALUE);
+                }
+                else if (value instanceof Integer) {
+                    out.writeByte(INTEGER_VALUE);
+                    out.writeInt((Integer)value);
+                }
+                else if (value instanceof Number) {
+                    out.writeByte(DOUBLE_VALUE);
+                    out.writeDouble(((Number)value).doubleValue());
+                }
+                else if (value instanceof Boolean) {
+                    out.writeByte(BOOLEAN_VALUE);
+                    out.writeBoolean((Boolean)value);
+                }
+                else if (value instanceof java.sql.Date) {
+                    out.writeByte(DATE_VALUE);
+                    out.writeInt((int)((java.sql.Date)value).toLocalDate().toEpochDay());
+                }
+                else {
+                    byte[] string = value.toString().getBytes(StandardCharsets.UTF_8);
+                    out.writeByte(STRING_VALUE);
+                    out.writeInt(string.length);
+                    out.write(string);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new SQLException("Cannot encode row", e);
+        }
+        return bytes.toByteArray();
+    }
+
+
+    // Helpers
+    @FunctionalInterface
+    interface Cascade<T> {
+        void apply(T entity) throws SQLException;
+    }
+}
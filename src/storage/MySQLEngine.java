@@ -0,0 +1,196 @@
+package storage;
+
+import models.*;
+import repository.GameMasterRepository;
+import repository.StatementExecutor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.tuple.Pair;
+
+public final class MySQLEngine implements StorageEngine {
+    // Stores (cascades mirror the foreign keys in mysql/tables/create.sql)
+    private final MySQLStore<Integer, Client> clients = new MySQLStore<>(Client.SCHEMA)
+        .cascade("DELETE FROM purchase WHERE user_id = ?")
+        .cascade("DELETE FROM wishlist WHERE user_id = ?");
+    private final MySQLStore<Integer, Provider> providers = new MySQLStore<>(Provider.SCHEMA)
+        .cascade("DELETE FROM contract WHERE developer_id = ? OR publisher_id = ?")
+        .cascade("DELETE FROM game WHERE developer_id = ?")
+        .cascade("UPDATE game SET publisher_id = developer_id WHERE publisher_id = ?");
+    private final MySQLStore<Integer, Admin> admins = new MySQLStore<>(Admin.SCHEMA);
+    private final MySQLStore<Pair<Integer, Integer>, Contract> contracts = new MySQLStore<>(Contract.SCHEMA);
+    private final MySQLStore<Integer, Game> games = new MySQLStore<>(Game.SCHEMA)
+        .cascade("DELETE FROM purchase WHERE game_id = ?")
+        .cascade("DELETE FROM wishlist WHERE game_id = ?")
+        .cascade("DELETE FROM dlc WHERE game_id = ? OR base_game_id = ?");
+    private final MySQLStore<Integer, DLC> DLCs = new MySQLStore<>(DLC.SCHEMA);
+    private final MySQLStore<Pair<Integer, Integer>, Purchase> purchases = new MySQLStore<>(Purchase.SCHEMA);
+    private final MySQLStore<Pair<Integer, Integer>, Wishlist> wishlists = new MySQLStore<>(Wishlist.SCHEMA);
+
+
+    // Getters
+    @Override
+    public String getName() {
+        return "mysql";
+    }
+
+    @Override
+    public EntityStore<Integer, Client> getClients() {
+        return clients;
+    }
+
+    @Override
+    public EntityStore<Integer, Provider> getProviders() {
+        return providers;
+    }
+
+    @Override
+    public EntityStore<Integer, Admin> getAdmins() {
+        return admins;
+    }
+
+    @Override
+    public EntityStore<Pair<Integer, Integer>, Contract> getContracts() {
+        return contracts;
+    }
+
+    @Override
+    public EntityStore<Integer, Game> getGames() {
+        return games;
+    }
+
+    @Override
+    public EntityStore<Integer, DLC> getDLCs() {
+        return DLCs;
+    }
+
+    @Override
+    public EntityStore<Pair<Integer, Integer>, Purchase> getPurchases() {
+        return purchases;
+    }
+
+    @Override
+    public EntityStore<Pair<Integer, Integer>, Wishlist> getWishlists() {
+        return wishlists;
+    }
+
+    // One round trip for every count
+    @Override
+    public List<Integer> getRowCounts() throws SQLException {
+        List<MySQLStore<?, ?>> stores = List.of(clients, providers, admins, contracts, games, DLCs, purchases, wishlists);
+
+        List<String> counts = new ArrayList<>();
+        for (MySQLStore<?, ?> store : stores) {
+            counts.add("\n    (" + store.getCountQuery().replace("\n", " ") + ")");
+        }
+
+        return StatementExecutor.queryOne(
+            "SELECT" + String.join(",", counts),
+            rs -> {
+                List<Integer> values = new ArrayList<>();
+                for (int i = 1; i <= stores.size(); ++i) {
+                    values.add(rs.getInt(i));
+                }
+                return values;
+            }
+        );
+    }
+
+
+    // Transactions
+    @Override
+    public Transaction begin() throws SQLException {
+        Connection connection = GameMasterRepository.getConnection();
+        try {
+            connection.setAutoCommit(false);
+        }
+        catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return new MySQLTransaction(connection);
+    }
+
+    @Override
+    public void close() {
+        GameMasterRepository.getPool().close();
+    }
+
+
+    // ID sequences
+    /*
+        One autocommitted UPDATE moves the sequence past the block and keeps the new value in
+        LAST_INSERT_ID(), which belongs to the connection, so concurrent reservations (from this
+        process or others) never get the same block. GREATEST lifts a sequence left behind by rows
+        inserted with explicit IDs (mysql/rows/insert.sql, the generator). A missing sequence row
+        is created on first use.
+    */
+    @Override
+    public int reserveIDs(String sequence, int floor, int count) throws SQLException {
+        try (Connection connection = GameMasterRepository.getPool().borrowSeparate()) {
+            try (PreparedStatement reserve = connection.prepareStatement(
+                    "UPDATE ID_SEQUENCE SET next_id = LAST_INSERT_ID(GREATEST(next_id, ?) + ?) WHERE name = ?")) {
+                reserve.setInt(1, floor);
+                reserve.setInt(2, count);
+                reserve.setString(3, sequence);
+
+                if (reserve.executeUpdate() == 0) {
+                    try (PreparedStatement create = connection.prepareStatement(
+                            "INSERT IGNORE INTO ID_SEQUENCE (name, next_id) VALUES (?, ?)")) {
+                        create.setString(1, sequence);
+                        create.setInt(2, floor);
+                        create.executeUpdate();
+                    }
+                    reserve.executeUpdate();
+                }
+            }
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT LAST_INSERT_ID()")) {
+                rs.next();
+                return rs.getInt(1) - count;
+            }
+        }
+    }
+
+
+    // Helpers
+    /*
+        The connection stays borrowed until close(), so every statement the thread runs in between
+        goes through the same physical connection (the pool is re-entrant per thread) and therefore
+        through the same transaction.
+    */
+    private static final class MySQLTransaction implements Transaction {
+        private final Connection connection;
+        private boolean committed = false;
+
+        private MySQLTransaction(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            connection.commit();
+            connection.setAutoCommit(true);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (!committed) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            }
+            finally {
+                connection.close();
+            }
+        }
+    }
+}
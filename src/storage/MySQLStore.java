@@ -0,0 +1,255 @@
+package storage;
+
+import repository.StatementExecutor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class MySQLStore<K, T> implements EntityStore<K, T> {
+    // Fields
+    private final Schema<K, T> schema;
+    private final List<String> tables;
+    private final Map<String, int[]> tableColumns = new HashMap<>();
+    private final List<String> cascades = new ArrayList<>();
+
+
+    // Generated statements
+    private final String from;
+    private final String select;
+    private final String where;
+
+
+    // Constructors
+    MySQLStore(Schema<K, T> schema) {
+        this.schema = schema;
+        this.tables = new ArrayList<>(schema.getTables().keySet());
+
+        for (String table : tables) {
+            String[] columns = schema.getTables().get(table);
+            int[] indexes = new int[columns.length];
+            for (int i = 0; i < columns.length; ++i) {
+                indexes[i] = schema.indexOf(columns[i]);
+            }
+            tableColumns.put(table, indexes);
+        }
+
+        String first = tables.get(0);
+        StringBuilder from = new StringBuilder("\nFROM " + first);
+        for (String table : tables.subList(1, tables.size())) {
+            from.append("\nJOIN ").append(table).append(" ON ").append(keyCondition(table, first + "."));
+        }
+        this.from = from.toString();
+
+        List<String> qualified = new ArrayList<>();
+        for (String column : schema.getColumns()) {
+            qualified.add(owner(column) + "." + column);
+        }
+        this.select = "SELECT " + String.join(", ", qualified) + this.from;
+        this.where = "\nWHERE " + keyCondition(first, "?");
+    }
+
+    // Extra statement run before the rows of the entity are deleted, bound to its key (repeated for every ?)
+    MySQLStore<K, T> cascade(String sql) {
+        cascades.add(sql);
+        return this;
+    }
+
+
+    // Getters
+    Schema<K, T> getSchema() {
+        return schema;
+    }
+
+    String getCountQuery() {
+        return "SELECT COUNT(*)" + from;
+    }
+
+
+    // Reads
+    @Override
+    public Map<K, T> loadAll() throws SQLException {
+        Map<K, T> entities = new ConcurrentHashMap<>();
+        for (T entity : StatementExecutor.query(select, this::map)) {
+            entities.put(schema.keyOf(entity), entity);
+        }
+        return entities;
+    }
+
+    @Override
+    public T find(K key) throws SQLException {
+        return StatementExecutor.queryOne(select + where, this::map, schema.keyValues(key));
+    }
+
+    @Override
+    public int count() throws SQLException {
+        return StatementExecutor.queryOne(getCountQuery(), rs -> rs.getInt(1));
+    }
+
+
+    // Writes
+    @Override
+    public int insert(T entity) throws SQLException {
+        Object[] row = schema.toRow(entity);
+        int response = 0;
+        for (String table : tables) {
+            response = StatementExecutor.update(insertStatement(table), project(row, tableColumns.get(table)));
+        }
+        return response;
+    }
+
+    @Override
+    public int insertAll(Collection<T> entities) throws SQLException {
+        List<Object[]> rows = StatementExecutor.rows(entities, schema::toRow);
+        int response = 0;
+        for (String table : tables) {
+            int[] indexes = tableColumns.get(table);
+            response = StatementExecutor.batch(insertStatement(table), StatementExecutor.rows(rows, row -> project(row, indexes)));
+        }
+        return response;
+    }
+
+    @Override
+    public int update(T entity) throws SQLException {
+        Object[] row = schema.toRow(entity);
+        int response = 0;
+        for (String table : tables) {
+            List<Object> values = new ArrayList<>();
+            List<String> assignments = new ArrayList<>();
+            for (int index : tableColumns.get(table)) {
+                String column = schema.getColumns().get(index);
+                if (!isKey(column)) {
+                    assignments.add(column + " = ?");
+                    values.add(row[index]);
+                }
+            }
+            if (assignments.isEmpty()) {
+                continue;
+            }
+
+            values.addAll(Arrays.asList(schema.keyValues(schema.keyOf(entity))));
+            response = StatementExecutor.update(
+                "UPDATE " + table +
+                "\nSET " + String.join(", ", assignments) +
+                "\nWHERE " + keyCondition(table, "?"),
+                values.toArray()
+            );
+        }
+        return response;
+    }
+
+    @Override
+    public int update(K key, String column, Object value) throws SQLException {
+        if (schema.indexOf(column) < 0) {
+            throw new SQLException("Unknown column " + column + " for " + schema.getName());
+        }
+
+        String table = owner(column);
+        Object[] keyValues = schema.keyValues(key);
+        Object[] parameters = new Object[keyValues.length + 1];
+        parameters[0] = value;
+        System.arraycopy(keyValues, 0, parameters, 1, keyValues.length);
+
+        return StatementExecutor.update(
+            "UPDATE " + table +
+            "\nSET " + column + " = ?" +
+            "\nWHERE " + keyCondition(table, "?"),
+            parameters
+        );
+    }
+
+    @Override
+    public int delete(T entity) throws SQLException {
+        Object[] key = schema.keyValues(schema.keyOf(entity));
+        for (String cascade : cascades) {
+            StatementExecutor.update(cascade, repeat(key, cascade));
+        }
+
+        int response = 0;
+        for (int i = tables.size() - 1; i >= 0; --i) {
+            response = StatementExecutor.update(deleteStatement(tables.get(i)), key);
+        }
+        return response;
+    }
+
+    @Override
+    public int deleteAll(Collection<T> entities) throws SQLException {
+        List<Object[]> keys = StatementExecutor.rows(entities, entity -> schema.keyValues(schema.keyOf(entity)));
+        for (String cascade : cascades) {
+            StatementExecutor.batch(cascade, StatementExecutor.rows(keys, key -> repeat(key, cascade)));
+        }
+
+        int response = 0;
+        for (int i = tables.size() - 1; i >= 0; --i) {
+            response = StatementExecutor.batch(deleteStatement(tables.get(i)), keys);
+        }
+        return response;
+    }
+
+
+    // Helpers
+    private T map(ResultSet rs) throws SQLException {
+        Object[] row = new Object[schema.getColumns().size()];
+        for (int i = 0; i < row.length; ++i) {
+            row[i] = rs.getObject(i + 1);
+        }
+        return schema.fromRow(row);
+    }
+
+    private boolean isKey(String column) {
+        return Arrays.asList(schema.getKey()).contains(column);
+    }
+
+    // First table holding the column (key columns belong to the first table)
+    private String owner(String column) {
+        for (String table : tables) {
+            if (Arrays.asList(schema.getTables().get(table)).contains(column)) {
+                return table;
+            }
+        }
+        return tables.get(0);
+    }
+
+    private String keyCondition(String table, String other) {
+        List<String> conditions = new ArrayList<>();
+        for (String column : schema.getKey()) {
+            conditions.add(table + "." + column + " = " + (other.equals("?") ? "?" : other + column));
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    private String insertStatement(String table) {
+        String[] columns = schema.getTables().get(table);
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ")" +
+               "\nVALUES (" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+    }
+
+    private String deleteStatement(String table) {
+        return "DELETE FROM " + table +
+               "\nWHERE " + keyCondition(table, "?");
+    }
+
+    private static Object[] project(Object[] row, int[] indexes) {
+        Object[] projected = new Object[indexes.length];
+        for (int i = 0; i < indexes.length; ++i) {
+            projected[i] = row[indexes[i]];
+        }
+        return projected;
+    }
+
+    private static Object[] repeat(Object[] key, String sql) {
+        int parameters = (int)sql.chars().filter(c -> c == '?').count();
+        Object[] values = new Object[parameters];
+        for (int i = 0; i < parameters; ++i) {
+            values[i] = key[i % key.length];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,122 @@
+package storage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+    Describes how an entity is laid out in storage: the tables it spans (a client is a user row
+    plus a client row), the key columns, and the mapping between the entity and one flat row
+    holding every column once, with values in database form (java.sql.Date, null publisher, ...).
+*/
+public final class Schema<K, T> {
+    // Fields
+    private final String name;
+    private final String[] key;
+    private final Map<String, String[]> tables = new LinkedHashMap<>();
+    private final List<String> columns = new ArrayList<>();
+    private final Function<T, Object[]> toRow;
+    private final Function<Object[], T> fromRow;
+    private final Function<T, K> keyOf;
+    private final Function<K, Object[]> keyValues;
+
+
+    // Constructors
+    public Schema(String name,
+                  String[] key,
+                  Function<T, Object[]> toRow,
+                  Function<Object[], T> fromRow,
+                  Function<T, K> keyOf,
+                  Function<K, Object[]> keyValues) {
+        this.name = name;
+        this.key = key;
+        this.toRow = toRow;
+        this.fromRow = fromRow;
+        this.keyOf = keyOf;
+        this.keyValues = keyValues;
+    }
+
+    public Schema<K, T> table(String table, String... tableColumns) {
+        tables.put(table, tableColumns);
+        for (String column : tableColumns) {
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
+        return this;
+    }
+
+
+    // Getters
+    public String getName() {
+        return name;
+    }
+
+    public String[] getKey() {
+        return key;
+    }
+
+    public Map<String, String[]> getTables() {
+        return Collections.unmodifiableMap(tables);
+    }
+
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public int indexOf(String column) {
+        return columns.indexOf(column);
+    }
+
+
+    // Mapping
+    public Object[] toRow(T entity) {
+        return toRow.apply(entity);
+    }
+
+    public T fromRow(Object[] row) {
+        return fromRow.apply(row);
+    }
+
+    public K keyOf(T entity) {
+        return keyOf.apply(entity);
+    }
+
+    public Object[] keyValues(K key) {
+        return keyValues.apply(key);
+    }
+
+
+    // Value helpers (database form -> class form)
+    public static Integer toInteger(Object value) {
+        return value == null ? null : ((Number)value).intValue();
+    }
+
+    public static Double toDouble(Object value) {
+        return value == null ? null : ((Number)value).doubleValue();
+    }
+
+    public static Boolean toBoolean(Object value) {
+        if (value instanceof Number) {
+            return ((Number)value).intValue() != 0;
+        }
+        return (Boolean)value;
+    }
+
+    public static LocalDate toDate(Object value) {
+        if (value == null) {
+            return null;
+        }
+        else if (value instanceof java.sql.Date) {
+            return ((java.sql.Date)value).toLocalDate();
+        }
+        else if (value instanceof LocalDate) {
+            return (LocalDate)value;
+        }
+        return LocalDate.parse(value.toString());
+    }
+}
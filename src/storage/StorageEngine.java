@@ -0,0 +1,50 @@
+package storage;
+
+import models.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import org.apache.commons.lang3.tuple.Pair;
+
+public interface StorageEngine {
+    public String getName();
+
+    public EntityStore<Integer, Client> getClients();
+    public EntityStore<Integer, Provider> getProviders();
+    public EntityStore<Integer, Admin> getAdmins();
+    public EntityStore<Pair<Integer, Integer>, Contract> getContracts();
+    public EntityStore<Integer, Game> getGames();
+    public EntityStore<Integer, DLC> getDLCs();
+    public EntityStore<Pair<Integer, Integer>, Purchase> getPurchases();
+    public EntityStore<Pair<Integer, Integer>, Wishlist> getWishlists();
+
+    public Transaction begin() throws SQLException;
+    public void close();
+
+    /*
+        Reserves count consecutive IDs of the sequence ("user" or "game"), none of them below floor,
+        and returns the first one. The reservation is committed on its own, whatever transaction
+        the thread has open, so a block is never handed out twice even if that transaction rolls back.
+    */
+    public int reserveIDs(String sequence, int floor, int count) throws SQLException;
+
+    // Row count of every store, in the order of the getters above
+    default List<Integer> getRowCounts() throws SQLException {
+        return List.of(
+            getClients().count(),
+            getProviders().count(),
+            getAdmins().count(),
+            getContracts().count(),
+            getGames().count(),
+            getDLCs().count(),
+            getPurchases().count(),
+            getWishlists().count()
+        );
+    }
+
+    public interface Transaction {
+        public void commit() throws SQLException;
+        // Rolls back unless committed
+        public void close() throws SQLException;
+    }
+}